@@ -0,0 +1,56 @@
+// File: src/main/java/i2jp/oop/bench/BenchmarkData.java
+// Deterministic test data shared by the benchmarks
+package i2jp.oop.bench;
+
+import i2jp.oop.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkData {
+  private static final String[] FIRST = { "Anna", "Piotr", "Julia", "Jan", "Maria", "Tomasz", "Zofia", "Adam" };
+  private static final String[] LAST = { "Nowak", "Kowalska", "Mazur", "Wójcik", "Lewandowski", "Zielińska" };
+  private static final String[] GRADES = { "[5.0,4.5,4.0]", "[4.0,4.0,3.5]", "[3.5,3.0]", "[]", "[2.0,3.0,5.0,4.5]" };
+
+  private BenchmarkData() {
+  }
+
+  /** Row {@code i} of a students file: id;index;first;last;dd.MM.yyyy;[grades] */
+  static String csvLine(int i) {
+    return String.format("%07d;S%06d;%s;%s;%02d.%02d.%d;%s",
+        i + 1, i, FIRST[i % FIRST.length], LAST[i % LAST.length],
+        1 + i % 28, 1 + i % 12, 1995 + i % 10, GRADES[i % GRADES.length]);
+  }
+
+  static Path writeStudentsCsv(int size) throws IOException {
+    Path file = Files.createTempFile("students-" + size + "-", ".csv");
+    file.toFile().deleteOnExit();
+    try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      for (int i = 0; i < size; i++) {
+        out.write(csvLine(i));
+        out.newLine();
+      }
+    }
+    return file;
+  }
+
+  static List<Student> students(int size) {
+    List<Student> students = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      Student s = new Student(FIRST[i % FIRST.length], LAST[i % LAST.length],
+          String.format("%02d.%02d.%d", 1 + i % 28, 1 + i % 12, 1995 + i % 10),
+          Person.Gender.OTHER, String.format("S%06d", i));
+      int grades = i % 5;
+      for (int g = 0; g < grades; g++) {
+        s.addGrade(GradeBook.valueOf((i + g) % GradeBook.scaleSize()));
+      }
+      students.add(s);
+    }
+    return students;
+  }
+}
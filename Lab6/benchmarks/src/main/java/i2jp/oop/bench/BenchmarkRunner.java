@@ -0,0 +1,27 @@
+// File: src/main/java/i2jp/oop/bench/BenchmarkRunner.java
+// Entry point of benchmarks.jar: JMH with the GC profiler always enabled
+package i2jp.oop.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line (e.g. a name filter,
+ * {@code -p size=1000}, {@code -rf json}) and always adds the GC profiler, so
+ * allocation rate and GC counts are reported next to every score.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    Options options = new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,76 @@
+// File: src/main/java/i2jp/oop/bench/GroupCsvBenchmark.java
+// Group.importFromCsv / exportToCsv at roster sizes from 1k to 1M
+package i2jp.oop.bench;
+
+import i2jp.oop.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GroupCsvBenchmark {
+
+  @Param({ "1000", "100000", "1000000" })
+  public int size;
+
+  private Path input;
+  private Path output;
+  private Group exported;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    input = BenchmarkData.writeStudentsCsv(size);
+    output = Files.createTempFile("export-" + size + "-", ".csv");
+    GroupRegistry.clear();
+    exported = new Group("EXPORT", "benchmark export group");
+    for (Student s : BenchmarkData.students(size)) {
+      exported.addStudent(s);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(input);
+    Files.deleteIfExists(output);
+    GroupRegistry.clear();
+  }
+
+  /**
+   * Imported students are registered globally; forget them between calls so the
+   * registry does not grow across invocations. Each call takes milliseconds, so
+   * a per-invocation fixture is cheap in comparison.
+   */
+  @Setup(Level.Invocation)
+  public void resetRegistry() {
+    GroupRegistry.clear();
+  }
+
+  @Benchmark
+  public Group importFromCsv() throws IOException, CsvFormatException {
+    Group g = new Group("IMPORT", "benchmark import group");
+    g.importFromCsv(input);
+    return g;
+  }
+
+  @Benchmark
+  public Group importFromCsvParallel() throws IOException, CsvFormatException {
+    Group g = new Group("IMPORT", "benchmark import group");
+    g.importFromCsvParallel(input, ";");
+    return g;
+  }
+
+  @Benchmark
+  public Path exportToCsv() throws IOException {
+    exported.exportToCsv(output);
+    return output;
+  }
+}
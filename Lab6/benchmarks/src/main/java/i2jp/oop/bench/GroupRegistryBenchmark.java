@@ -0,0 +1,67 @@
+// File: src/main/java/i2jp/oop/bench/GroupRegistryBenchmark.java
+// GroupRegistry lookups and assignment churn at registry sizes from 1k to 1M
+package i2jp.oop.bench;
+
+import i2jp.oop.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GroupRegistryBenchmark {
+
+  @Param({ "1000", "100000", "1000000" })
+  public int size;
+
+  private String[] ids;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    ids = new String[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = String.format("%07d", i + 1);
+    }
+    GroupRegistry.clear();
+    for (int i = 0; i < size; i++) {
+      GroupRegistry.tryAssign(ids[i], "G" + (i % 16));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    GroupRegistry.clear();
+  }
+
+  @Benchmark
+  public void lookupAll(Blackhole bh) {
+    for (String id : ids) {
+      bh.consume(GroupRegistry.assignedGroup(id));
+    }
+  }
+
+  @Benchmark
+  public void isAssignedAll(Blackhole bh) {
+    for (String id : ids) {
+      bh.consume(GroupRegistry.isAssigned(id));
+    }
+  }
+
+  /** Moves every student to another group and back: 2 × size unassign/tryAssign pairs. */
+  @Benchmark
+  public void reassignAll(Blackhole bh) {
+    for (int i = 0; i < ids.length; i++) {
+      String home = "G" + (i % 16);
+      GroupRegistry.unassign(ids[i], home);
+      bh.consume(GroupRegistry.tryAssign(ids[i], "MOVED"));
+      GroupRegistry.unassign(ids[i], "MOVED");
+      bh.consume(GroupRegistry.tryAssign(ids[i], home));
+    }
+  }
+}
@@ -0,0 +1,55 @@
+// File: src/main/java/i2jp/oop/bench/PersonBenchmark.java
+// Person/Student construction: date parsing and base36 id generation
+package i2jp.oop.bench;
+
+import i2jp.oop.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersonBenchmark {
+
+  @Param({ "1000", "100000", "1000000" })
+  public int size;
+
+  private String[] birthDates;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    birthDates = new String[size];
+    for (int i = 0; i < size; i++) {
+      birthDates[i] = String.format("%02d.%02d.%d", 1 + i % 28, 1 + i % 12, 1995 + i % 10);
+    }
+  }
+
+  /** Constructs {@code size} persons, each parsing its birth date and drawing an id. */
+  @Benchmark
+  public void createPersons(Blackhole bh) {
+    for (int i = 0; i < size; i++) {
+      bh.consume(new Person("Anna", "Nowak", birthDates[i], Person.Gender.FEMALE));
+    }
+  }
+
+  @Benchmark
+  public void createStudents(Blackhole bh) {
+    for (int i = 0; i < size; i++) {
+      bh.consume(new Student("Anna", "Nowak", birthDates[i], Person.Gender.FEMALE, "S000001"));
+    }
+  }
+
+  @Benchmark
+  public void formatBirthDates(Blackhole bh) {
+    Person p = new Person("Anna", "Nowak", "15.03.2003", Person.Gender.FEMALE);
+    for (int i = 0; i < size; i++) {
+      bh.consume(p.getBirthDateFormatted());
+    }
+  }
+}
@@ -0,0 +1,38 @@
+// File: src/main/java/i2jp/oop/bench/StudentAverageBenchmark.java
+// Student.average() over a whole roster
+package i2jp.oop.bench;
+
+import i2jp.oop.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StudentAverageBenchmark {
+
+  @Param({ "1000", "100000", "1000000" })
+  public int size;
+
+  private List<Student> students;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    students = BenchmarkData.students(size);
+  }
+
+  @Benchmark
+  public double averageOfAll() {
+    double total = 0;
+    for (Student s : students) {
+      total += s.average().orElse(0.0);
+    }
+    return total;
+  }
+}
@@ -2,7 +2,6 @@ import i2jp.oop.*;
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
-import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,16 +9,24 @@ import org.apache.logging.log4j.Logger;
 public class StudentManagerApp {
     private static final Logger log = LogManager.getLogger(StudentManagerApp.class);
 
-    private static final Map<String, Student> studentRepo = new HashMap<>();
-    private static final Map<String, Group> groupRepo = new HashMap<>();
+    // Chosen by the 'storage' setting: 'memory' (default) or 'offheap', and kept in the
+    // students file by the 'persistence' setting: 'none' (default), 'snapshot' or 'log'
+    private static StudentRepository studentRepo = new InMemoryStudentRepository();
+    private static final GroupRepository groupRepo = new InMemoryGroupRepository();
+    // Column copy of studentRepo, appended to alongside it, for statistics over all students;
+    // not kept with off-heap storage, whose point is to keep the heap flat
+    private static StudentTable studentTable = new StudentTable();
 
     private static Properties config = new Properties();
     private static final String CONFIG_FILE = "console.properties";
     private static String delimiter = ";";
     private static String studentsFile = "students.csv";
     private static String groupsFile = "groups.csv";
+    private static String storage = "memory";
+    private static String persistence = "none";
 
     private static Scanner scanner = new Scanner(System.in);
+    private static final int TOP_STUDENTS = 3;
 
     public static void main(String[] args) {
         log.info("=== Student & Group Manager Application Starting ===");
@@ -27,6 +34,7 @@ public class StudentManagerApp {
 
         try {
             loadConfiguration();
+            configureStorage();
 
             System.out.println("=== Student & Group Manager ===");
             System.out.println("Configuration loaded from " + CONFIG_FILE);
@@ -40,6 +48,7 @@ public class StudentManagerApp {
             System.err.println("See logs for details.");
         } finally {
             log.info("=== Application Shutting Down ===");
+            closeStorage();
             scanner.close();
         }
     }
@@ -66,6 +75,7 @@ public class StudentManagerApp {
                     case "11" -> showGroupDetails();
                     case "12" -> showConfiguration();
                     case "13" -> editConfiguration();
+                    case "14" -> showGradeStatistics();
                     case "0" -> {
                         running = false;
                         log.info("User requested exit");
@@ -101,6 +111,7 @@ public class StudentManagerApp {
         System.out.println("11) Show group details");
         System.out.println("12) Show current configuration");
         System.out.println("13) Edit configuration");
+        System.out.println("14) Show grade statistics");
         System.out.println("0)  Exit");
         System.out.print("Select option: ");
     }
@@ -117,8 +128,10 @@ public class StudentManagerApp {
                 delimiter = config.getProperty("delimiter", ";");
                 studentsFile = config.getProperty("students", "students.csv");
                 groupsFile = config.getProperty("groups", "groups.csv");
-                log.info("Configuration loaded: delimiter='{}', students='{}', groups='{}'",
-                        delimiter, studentsFile, groupsFile);
+                storage = config.getProperty("storage", "memory");
+                persistence = config.getProperty("persistence", "none");
+                log.info("Configuration loaded: delimiter='{}', students='{}', groups='{}', storage='{}', "
+                        + "persistence='{}'", delimiter, studentsFile, groupsFile, storage, persistence);
             } catch (IOException e) {
                 log.error("Failed to load configuration from {}", CONFIG_FILE, e);
                 System.out.println("[WARNING] Could not load configuration: " + e.getMessage());
@@ -131,6 +144,8 @@ public class StudentManagerApp {
         config.setProperty("delimiter", ";");
         config.setProperty("students", "students.csv");
         config.setProperty("groups", "groups.csv");
+        config.setProperty("storage", "memory");
+        config.setProperty("persistence", "none");
 
         try (OutputStream out = Files.newOutputStream(configPath)) {
             config.store(out, "Student Manager Configuration");
@@ -144,6 +159,70 @@ public class StudentManagerApp {
         delimiter = ";";
         studentsFile = "students.csv";
         groupsFile = "groups.csv";
+        storage = "memory";
+        persistence = "none";
+    }
+
+    private static void configureStorage() {
+        switch (storage) {
+            case "memory" -> {
+                studentRepo = new InMemoryStudentRepository();
+                studentTable = new StudentTable();
+            }
+            case "offheap" -> {
+                studentRepo = new OffHeapStudentRepository();
+                studentTable = null;
+            }
+            default -> {
+                log.warn("Unknown storage '{}', using memory", storage);
+                System.out.println("[WARNING] Unknown storage '" + storage + "', using memory");
+                storage = "memory";
+                configureStorage();
+                return;
+            }
+        }
+        log.info("Student storage: {}", storage);
+        configurePersistence();
+    }
+
+    // Wraps the store chosen above; 'snapshot' and 'log' load the saved students right away
+    private static void configurePersistence() {
+        try {
+            switch (persistence) {
+                case "none" -> {
+                    return;
+                }
+                case "snapshot" -> studentRepo = CsvSnapshotStudentRepository.open(
+                        Paths.get(studentsFile), delimiter, studentRepo);
+                case "log" -> studentRepo = AppendLogStudentRepository.open(
+                        Paths.get(studentsFile + ".log"), delimiter, studentRepo);
+                default -> {
+                    log.warn("Unknown persistence '{}', using none", persistence);
+                    System.out.println("[WARNING] Unknown persistence '" + persistence + "', using none");
+                    persistence = "none";
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not open {} persistence for {}", persistence, studentsFile, e);
+            System.out.println("[ERROR] Could not open saved students: " + e.getMessage());
+            persistence = "none";
+            return;
+        }
+        if (studentTable != null) {
+            studentTable = StudentTable.of(studentRepo.streamAll().toList());
+        }
+        log.info("Student persistence: {} ({} students loaded)", persistence, studentRepo.size());
+        System.out.println("Loaded " + studentRepo.size() + " saved students (" + persistence + ")");
+    }
+
+    private static void closeStorage() {
+        try {
+            studentRepo.close();
+        } catch (IOException e) {
+            log.error("Could not save students on exit", e);
+            System.out.println("[ERROR] Could not save students: " + e.getMessage());
+        }
     }
 
     private static void showConfiguration() {
@@ -152,6 +231,11 @@ public class StudentManagerApp {
         System.out.println("Delimiter: " + delimiter);
         System.out.println("Students file: " + studentsFile);
         System.out.println("Groups file: " + groupsFile);
+        System.out.println("Storage: " + storage + " (set in " + CONFIG_FILE + ", read at startup)");
+        System.out.println("Persistence: " + persistence + " (set in " + CONFIG_FILE + ", read at startup)");
+        if (studentRepo instanceof OffHeapStudentRepository offHeap) {
+            System.out.printf("Off-heap memory: %.1f MB%n", offHeap.offHeapBytes() / (1024.0 * 1024));
+        }
     }
 
     private static void editConfiguration() {
@@ -204,55 +288,61 @@ public class StudentManagerApp {
         }
 
         try {
-            List<String> lines = Files.readAllLines(path);
+            ParallelCsvImporter.Result result = new ParallelCsvImporter(delimiter).parse(path);
             int count = 0;
-            int errors = 0;
-
-            for (int i = 0; i < lines.size(); i++) {
-                String line = lines.get(i);
-                log.debug("Processing student CSV line {}: {}", i + 1, line);
+            int errors = result.getErrors().size();
+
+            for (ParallelCsvImporter.RowError error : result.getErrors()) {
+                if (error.isMalformed()) {
+                    log.warn("Skipping malformed line {}: {}", error.getLineNumber(), error.getReason());
+                    System.out.println("Skipping malformed line " + error.getLineNumber() + ": "
+                            + error.getLine());
+                } else {
+                    log.error("Error processing line {}: {}", error.getLineNumber(), error.getReason(),
+                            error.getCause());
+                    System.out.println("Error on line " + error.getLineNumber() + ": " + error.getReason());
+                }
+            }
 
+            // Students keep the ids in the file, which the parser has checked for duplicates and
+            // groups.csv refers to; rows without one get the next free id, in file order
+            List<Student> imported = new ArrayList<>(result.getRows().size());
+            for (ParallelCsvImporter.Row row : result.getRows()) {
                 try {
-                    String[] fields = line.split(Pattern.quote(delimiter));
-                    if (fields.length != 6) {
-                        log.warn("Skipping malformed line {}: expected 6 fields, got {}",
-                                i + 1, fields.length);
-                        System.out.println("Skipping malformed line " + (i + 1) + ": " + line);
-                        errors++;
-                        continue;
-                    }
-
-                    String id = fields[0];
-                    String index = fields[1];
-                    String firstName = fields[2];
-                    String lastName = fields[3];
-                    String birthDate = fields[4];
-                    String gradesRaw = fields[5];
-
-                    Student student = new Student(firstName, lastName, birthDate,
-                            Person.Gender.OTHER, index);
+                    Student student = row.toStoredStudent();
 
-                    List<Double> grades = parseGrades(gradesRaw);
-                    for (double g : grades) {
+                    for (String invalid : row.getInvalidGrades()) {
+                        log.warn("Invalid grade format: {}", invalid);
+                    }
+                    for (double g : row.getGrades()) {
                         try {
                             student.addGrade(g);
                         } catch (IllegalArgumentException e) {
-                            log.warn("Invalid grade {} for student {} on line {}", g, index, i + 1);
-                            System.out.println("Invalid grade " + g + " for student " + index);
+                            log.warn("Invalid grade {} for student {} on line {}",
+                                    g, row.getIndexNumber(), row.getLineNumber());
+                            System.out.println("Invalid grade " + g + " for student " + row.getIndexNumber());
                         }
                     }
 
-                    studentRepo.put(student.getId(), student);
+                    imported.add(student);
                     count++;
 
                 } catch (Exception e) {
-                    log.error("Error processing line {}", i + 1, e);
-                    System.out.println("Error on line " + (i + 1) + ": " + e.getMessage());
+                    log.error("Error processing line {}", row.getLineNumber(), e);
+                    System.out.println("Error on line " + row.getLineNumber() + ": " + e.getMessage());
                     errors++;
                 }
             }
 
+            studentRepo.putAll(imported);
+            if (studentTable != null) {
+                for (Student student : imported) {
+                    studentTable.add(student);
+                }
+            }
+
             log.info("Student import completed: {} imported, {} errors", count, errors);
+            log.info("Name pool: {}", NamePool.describe());
             System.out.println("Imported " + count + " students from " + studentsFile);
             if (errors > 0) {
                 System.out.println("(" + errors + " lines had errors)");
@@ -267,24 +357,13 @@ public class StudentManagerApp {
     private static void saveStudentsToCsv() {
         log.info("Attempting to save {} students to: {}", studentRepo.size(), studentsFile);
 
-        try {
-            List<String> lines = new ArrayList<>();
-
-            for (Student s : studentRepo.values()) {
-                String line = String.join(delimiter,
-                        s.getId(),
-                        s.getIndexNumber(),
-                        s.getFirstName(),
-                        s.getLastName(),
-                        s.getBirthDateFormatted(),
-                        formatGrades(s.getGrades()));
-                lines.add(line);
-                log.debug("Saving student: {}", line);
+        try (CsvWriter out = CsvWriter.openAtomic(Paths.get(studentsFile), delimiter)) {
+            for (Student s : studentRepo) {
+                out.row(s);
             }
-
-            Files.write(Paths.get(studentsFile), lines);
-            log.info("Successfully exported {} students to {}", lines.size(), studentsFile);
-            System.out.println("Exported " + lines.size() + " students to " + studentsFile);
+            out.commit();
+            log.info("Successfully exported {} students to {}", out.rowCount(), studentsFile);
+            System.out.println("Exported " + out.rowCount() + " students to " + studentsFile);
 
         } catch (IOException e) {
             log.error("Failed to save students to {}", studentsFile, e);
@@ -304,28 +383,41 @@ public class StudentManagerApp {
 
         try {
             List<String> lines = Files.readAllLines(path);
+            CsvTokenizer fields = new CsvTokenizer(delimiter);
+            CsvTokenizer idList = new CsvTokenizer(",");
             int count = 0;
 
             for (int i = 0; i < lines.size(); i++) {
                 String line = lines.get(i);
-                log.debug("Processing group CSV line {}: {}", i + 1, line);
+                if (log.isDebugEnabled()) {
+                    log.debug("Processing group CSV line {}: {}", i + 1, line);
+                }
 
-                String[] fields = line.split(Pattern.quote(delimiter));
-                if (fields.length != 3) {
+                int fieldCount;
+                try {
+                    fieldCount = fields.tokenize(line);
+                } catch (IllegalArgumentException e) {
+                    fieldCount = -1;
+                }
+                if (fieldCount != 3) {
                     log.warn("Skipping malformed group line {}", i + 1);
                     System.out.println("Skipping malformed line " + (i + 1) + ": " + line);
                     continue;
                 }
 
-                String groupName = fields[0];
-                String description = fields[1];
-                String studentIdsRaw = fields[2];
+                String groupName = fields.field(0);
+                String description = fields.field(1);
 
                 Group group = new Group(groupName, description);
 
-                List<String> studentIds = parseStudentIds(studentIdsRaw);
-                for (String studentId : studentIds) {
-                    Student student = studentRepo.get(studentId);
+                int idCount = idList.tokenizeList(fields, 2);
+                List<String> memberIds = new ArrayList<>(idCount);
+                for (int k = 0; k < idCount; k++) {
+                    memberIds.add(idList.trimmedField(k));
+                }
+                Map<String, Student> members = studentRepo.findByIds(memberIds);
+                for (String studentId : memberIds) {
+                    Student student = members.get(studentId);
                     if (student != null) {
                         if (!group.addStudent(student)) {
                             log.warn("Could not add student {} to group {}", studentId, groupName);
@@ -338,7 +430,7 @@ public class StudentManagerApp {
                     }
                 }
 
-                groupRepo.put(groupName, group);
+                groupRepo.put(group);
                 count++;
             }
 
@@ -354,22 +446,21 @@ public class StudentManagerApp {
     private static void saveGroupsToCsv() {
         log.info("Attempting to save {} groups to: {}", groupRepo.size(), groupsFile);
 
-        try {
-            List<String> lines = new ArrayList<>();
-
-            for (Group g : groupRepo.values()) {
-                String studentIds = formatStudentIds(g.getMembers());
-                String line = String.join(delimiter,
-                        g.getName(),
-                        g.getDescription(),
-                        studentIds);
-                lines.add(line);
-                log.debug("Saving group: {}", line);
+        try (CsvWriter out = CsvWriter.openAtomic(Paths.get(groupsFile), delimiter)) {
+            List<String> studentIds = new ArrayList<>();
+            for (Group g : groupRepo) {
+                studentIds.clear();
+                for (Student s : g.getMembers()) {
+                    studentIds.add(s.getId());
+                }
+                out.field(g.getName())
+                        .field(g.getDescription())
+                        .listField(studentIds)
+                        .endRow();
             }
-
-            Files.write(Paths.get(groupsFile), lines);
-            log.info("Successfully exported {} groups to {}", lines.size(), groupsFile);
-            System.out.println("Exported " + lines.size() + " groups to " + groupsFile);
+            out.commit();
+            log.info("Successfully exported {} groups to {}", out.rowCount(), groupsFile);
+            System.out.println("Exported " + out.rowCount() + " groups to " + groupsFile);
 
         } catch (IOException e) {
             log.error("Failed to save groups to {}", groupsFile, e);
@@ -406,7 +497,10 @@ public class StudentManagerApp {
             String index = scanner.nextLine().trim();
 
             Student student = new Student(firstName, lastName, birthDate, gender, index);
-            studentRepo.put(student.getId(), student);
+            studentRepo.put(student);
+            if (studentTable != null) {
+                studentTable.add(student);
+            }
 
             log.info("New student created via UI: id={} index={}", student.getId(), index);
             System.out.println("Student created with ID: " + student.getId());
@@ -424,7 +518,7 @@ public class StudentManagerApp {
         System.out.print("Group name: ");
         String name = scanner.nextLine().trim();
 
-        if (groupRepo.containsKey(name)) {
+        if (groupRepo.contains(name)) {
             log.warn("Group '{}' already exists, asking for confirmation", name);
             System.out.print("Group already exists. Overwrite? (yes/no): ");
             if (!scanner.nextLine().trim().equalsIgnoreCase("yes")) {
@@ -438,7 +532,7 @@ public class StudentManagerApp {
         String description = scanner.nextLine().trim();
 
         Group group = new Group(name, description);
-        groupRepo.put(name, group);
+        groupRepo.put(group);
 
         log.info("New group created via UI: '{}'", name);
         System.out.println("Group created: " + name);
@@ -514,7 +608,10 @@ public class StudentManagerApp {
             return;
         }
 
-        List<Student> students = new ArrayList<>(studentRepo.values());
+        List<Student> students = new ArrayList<>(studentRepo.size());
+        for (Student s : studentRepo) {
+            students.add(s);
+        }
         students.sort(Comparator.comparing(Student::getLastName)
                 .thenComparing(Student::getFirstName));
 
@@ -538,8 +635,9 @@ public class StudentManagerApp {
             return;
         }
 
-        for (Group g : groupRepo.values()) {
-            System.out.println(g);
+        for (Group g : groupRepo) {
+            OptionalDouble avg = g.average();
+            System.out.println(avg.isPresent() ? String.format("%s average=%.2f", g, avg.getAsDouble()) : g);
         }
     }
 
@@ -575,66 +673,54 @@ public class StudentManagerApp {
                     s.average().orElse(0.0));
         }
 
-        OptionalDouble groupAvg = members.stream()
-                .mapToDouble(s -> s.average().orElse(0.0))
-                .average();
-
-        System.out.printf("\nGroup average: %.2f%n", groupAvg.orElse(0.0));
+        System.out.println();
+        printStatistics(GroupStatistics.of(group.getName(), members, TOP_STUDENTS));
     }
 
-    private static List<Double> parseGrades(String gradesRaw) {
-        List<Double> grades = new ArrayList<>();
-        String inner = gradesRaw.replace("[", "").replace("]", "").trim();
-        if (!inner.isEmpty()) {
-            String[] parts = inner.split(",");
-            for (String p : parts) {
-                try {
-                    grades.add(Double.parseDouble(p.trim()));
-                } catch (NumberFormatException e) {
-                    log.warn("Invalid grade format: {}", p);
-                }
-            }
+    private static void showGradeStatistics() {
+        log.debug("Displaying grade statistics for {} groups", groupRepo.size());
+        System.out.println("=== Grade Statistics ===");
+
+        if (studentTable != null && studentTable.gradeCount() > 0) {
+            System.out.printf("All students: %d students, %d graded, %d grades%n",
+                    studentTable.size(), studentTable.gradedCount(), studentTable.gradeCount());
+            System.out.printf("  mean=%.2f failing=%d (average below %.1f)%n",
+                    studentTable.meanGrade().getAsDouble(),
+                    studentTable.countAverageBelow(GroupStatistics.PASSING_AVERAGE),
+                    GroupStatistics.PASSING_AVERAGE);
+            System.out.println("  grades: " + GroupStatistics.formatHistogram(studentTable.gradeHistogram()));
+            System.out.println();
         }
-        return grades;
-    }
 
-    private static String formatGrades(List<Double> grades) {
-        if (grades.isEmpty())
-            return "[]";
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < grades.size(); i++) {
-            if (i > 0)
-                sb.append(",");
-            sb.append(String.format(Locale.US, "%.1f", grades.get(i)));
-        }
-        sb.append("]");
-        return sb.toString();
-    }
+        if (groupRepo.isEmpty()) {
+            System.out.println("No groups in repository.");
+            return;
+        }
 
-    private static List<String> parseStudentIds(String idsRaw) {
-        List<String> ids = new ArrayList<>();
-        String inner = idsRaw.replace("[", "").replace("]", "").trim();
-        if (!inner.isEmpty()) {
-            String[] parts = inner.split(",");
-            for (String p : parts) {
-                ids.add(p.trim());
-            }
+        GroupStatistics.Report report = GroupStatistics.compute(groupRepo.streamAll().toList(), TOP_STUDENTS);
+        for (GroupStatistics stats : report.getGroups()) {
+            printStatistics(stats);
+            System.out.println();
         }
-        return ids;
+        printStatistics(report.getOverall());
     }
 
-    private static String formatStudentIds(Set<Student> students) {
-        if (students.isEmpty())
-            return "[]";
-        StringBuilder sb = new StringBuilder("[");
-        boolean first = true;
-        for (Student s : students) {
-            if (!first)
-                sb.append(",");
-            sb.append(s.getId());
-            first = false;
+    private static void printStatistics(GroupStatistics stats) {
+        System.out.printf("%s: %d students, %d graded, %d grades%n",
+                stats.getName(), stats.getStudentCount(), stats.getGradedCount(), stats.getGradeCount());
+        if (stats.getGradeCount() == 0) {
+            return;
+        }
+        System.out.printf("  mean=%.2f median=%.2f failing=%d (average below %.1f)%n",
+                stats.getMean().getAsDouble(),
+                stats.getMedian().getAsDouble(),
+                stats.getFailingCount(),
+                GroupStatistics.PASSING_AVERAGE);
+        System.out.println("  grades: " + stats.formatHistogram());
+        System.out.println("  top " + TOP_STUDENTS + ":");
+        for (Student s : stats.getTopStudents()) {
+            System.out.printf("    %s %s (%s) avg=%.2f%n",
+                    s.getFirstName(), s.getLastName(), s.getIndexNumber(), s.average().orElse(0.0));
         }
-        sb.append("]");
-        return sb.toString();
     }
 }
\ No newline at end of file
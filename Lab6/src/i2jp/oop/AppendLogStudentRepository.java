@@ -0,0 +1,202 @@
+// File: src/i2jp/oop/AppendLogStudentRepository.java
+// Students persisted by appending each change to a log file
+package i2jp.oop;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A repository that persists every {@link #put} as one row appended to a log
+ * file, in the students CSV format. Opening it replays the log into the store,
+ * the later of two rows with the same id winning.
+ * <p>
+ * A put costs one short write however many students there are, and
+ * {@link #putAll} writes the whole batch at once, so it suits data that changes
+ * a little at a time. The log grows with every put; when it is opened with at
+ * least twice as many rows as students, or with a row cut short by a crash, it
+ * is rewritten with one row per student.
+ */
+public final class AppendLogStudentRepository implements StudentRepository {
+  private static final Logger log = LogManager.getLogger(AppendLogStudentRepository.class);
+
+  private static final int FIELDS = 6;
+  private static final int MIN_COMPACT_ROWS = 1024;
+
+  private final StudentRepository store;
+  private final CsvWriter out;
+
+  private AppendLogStudentRepository(StudentRepository store, CsvWriter out) {
+    this.store = store;
+    this.out = out;
+  }
+
+  /** Replays {@code file}, if it exists, into {@code store} and opens it for appending. */
+  public static AppendLogStudentRepository open(Path file, String delimiter, StudentRepository store)
+      throws IOException {
+    long rows = 0;
+    boolean damaged = false;
+    if (Files.exists(file)) {
+      CsvTokenizer fields = new CsvTokenizer(delimiter);
+      CsvTokenizer grades = new CsvTokenizer(",");
+      try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        String line;
+        long lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+          lineNumber++;
+          if (line.isBlank()) {
+            continue;
+          }
+          Student s = replay(line, fields, grades);
+          if (s == null) {
+            log.warn("Skipping damaged line {} of {}", lineNumber, file);
+            damaged = true;
+          } else {
+            store.put(s);
+            rows++;
+          }
+        }
+      }
+      log.info("Replayed {} rows of {} into {} students", rows, file, store.size());
+      // a row appended now would run on from an unterminated last line
+      damaged |= !endsWithNewline(file);
+    }
+    if (damaged || (rows >= MIN_COMPACT_ROWS && rows >= 2L * store.size())) {
+      compact(file, delimiter, store);
+    }
+    FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    return new AppendLogStudentRepository(store, new CsvWriter(CsvWriter.Sink.of(channel), delimiter));
+  }
+
+  // null if the row is not one this class wrote, e.g. the last one of a crashed run
+  private static Student replay(String line, CsvTokenizer fields, CsvTokenizer grades) {
+    try {
+      if (fields.tokenize(line) != FIELDS) {
+        return null;
+      }
+      long number = PersonIds.parseExact(fields.field(0));
+      if (number < 0) {
+        return null;
+      }
+      Person.reserveIds(number);
+      Student s = new Student(number, fields.field(2), fields.field(3), DateCodec.parse(fields.field(4)),
+          Person.Gender.OTHER, fields.field(1));
+      int n = grades.tokenizeList(fields, 5);
+      for (int i = 0; i < n; i++) {
+        s.addGrade(grades.doubleField(i));
+      }
+      return s;
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static boolean endsWithNewline(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size == 0) {
+        return true;
+      }
+      ByteBuffer last = ByteBuffer.allocate(1);
+      channel.read(last, size - 1);
+      return last.get(0) == '\n';
+    }
+  }
+
+  private static void compact(Path file, String delimiter, StudentRepository store) throws IOException {
+    try (CsvWriter compacted = CsvWriter.openAtomic(file, delimiter)) {
+      for (Student s : store) {
+        compacted.row(s);
+      }
+      compacted.commit();
+      log.info("Compacted {} to {} rows", file, compacted.rowCount());
+    }
+  }
+
+  /** Stores {@code s} and appends its row to the log. */
+  @Override
+  public void put(Student s) {
+    store.put(s);
+    append(s);
+    flushLog();
+  }
+
+  /** Stores the students and appends their rows to the log in one write. */
+  @Override
+  public void putAll(Collection<? extends Student> students) {
+    store.putAll(students);
+    for (Student s : students) {
+      append(s);
+    }
+    flushLog();
+  }
+
+  private void append(Student s) {
+    try {
+      out.row(s);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not append to the student log: " + e.getMessage(), e);
+    }
+  }
+
+  private void flushLog() {
+    try {
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not append to the student log: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public Student get(String id) {
+    return store.get(id);
+  }
+
+  @Override
+  public Map<String, Student> findByIds(Collection<String> ids) {
+    return store.findByIds(ids);
+  }
+
+  @Override
+  public int size() {
+    return store.size();
+  }
+
+  @Override
+  public Iterator<Student> iterator() {
+    return store.iterator();
+  }
+
+  @Override
+  public Stream<Student> streamAll() {
+    return store.streamAll();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      out.close();
+    } finally {
+      store.close();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+// File: src/i2jp/oop/CsvSnapshotStudentRepository.java
+// Students loaded from a CSV file and written back to it as a whole
+package i2jp.oop;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A repository backed by a students CSV file
+ * ({@code id;index;first;last;dd.MM.yyyy;[grades]}).
+ * <p>
+ * The file is read once, in parallel, when the repository is opened, and the
+ * students keep the ids it gives them. They are then held by another
+ * repository, the store, and {@link #flush()} rewrites the whole file from it
+ * atomically. That makes reads as fast as the store and a save proportional to
+ * the number of students; it suits data that is loaded in bulk and saved now
+ * and then. Nothing is written if no student was put since the last flush.
+ */
+public final class CsvSnapshotStudentRepository implements StudentRepository {
+  private static final Logger log = LogManager.getLogger(CsvSnapshotStudentRepository.class);
+
+  private final Path file;
+  private final String delimiter;
+  private final StudentRepository store;
+  private boolean dirty;
+
+  private CsvSnapshotStudentRepository(Path file, String delimiter, StudentRepository store) {
+    this.file = file;
+    this.delimiter = delimiter;
+    this.store = store;
+  }
+
+  /**
+   * Loads {@code file}, if it exists, into {@code store}. Rows that cannot be
+   * read are logged and skipped, as are grades outside the scale.
+   */
+  public static CsvSnapshotStudentRepository open(Path file, String delimiter, StudentRepository store)
+      throws IOException {
+    CsvSnapshotStudentRepository repo = new CsvSnapshotStudentRepository(file, delimiter, store);
+    if (Files.exists(file)) {
+      ParallelCsvImporter.Result result = new ParallelCsvImporter(delimiter).parse(file);
+      for (ParallelCsvImporter.RowError error : result.getErrors()) {
+        log.warn("Skipping line {} of {}: {}", error.getLineNumber(), file, error.getReason());
+      }
+      List<Student> students = new ArrayList<>(result.getRows().size());
+      for (ParallelCsvImporter.Row row : result.getRows()) {
+        Student s = row.toStoredStudent();
+        for (double g : row.getGrades()) {
+          if (GradeBook.codeOf(g) < 0) {
+            log.warn("Skipping invalid grade {} on line {} of {}", g, row.getLineNumber(), file);
+          } else {
+            s.addGrade(g);
+          }
+        }
+        students.add(s);
+      }
+      store.putAll(students);
+      log.info("Loaded {} students from {}", students.size(), file);
+    }
+    return repo;
+  }
+
+  @Override
+  public void put(Student s) {
+    store.put(s);
+    dirty = true;
+  }
+
+  @Override
+  public void putAll(Collection<? extends Student> students) {
+    store.putAll(students);
+    dirty = true;
+  }
+
+  @Override
+  public Student get(String id) {
+    return store.get(id);
+  }
+
+  @Override
+  public Map<String, Student> findByIds(Collection<String> ids) {
+    return store.findByIds(ids);
+  }
+
+  @Override
+  public int size() {
+    return store.size();
+  }
+
+  @Override
+  public Iterator<Student> iterator() {
+    return store.iterator();
+  }
+
+  @Override
+  public Stream<Student> streamAll() {
+    return store.streamAll();
+  }
+
+  /** Rewrites the file from the store if a student was put since the last flush. */
+  @Override
+  public void flush() throws IOException {
+    if (!dirty) {
+      return;
+    }
+    try (CsvWriter out = CsvWriter.openAtomic(file, delimiter)) {
+      for (Student s : store) {
+        out.row(s);
+      }
+      out.commit();
+      log.info("Wrote {} students to {}", out.rowCount(), file);
+    }
+    dirty = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      store.close();
+    }
+  }
+}
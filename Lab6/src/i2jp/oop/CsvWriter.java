@@ -0,0 +1,417 @@
+// File: src/i2jp/oop/CsvWriter.java
+// Buffered CSV writer that encodes rows straight into a reusable byte buffer
+package i2jp.oop;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes CSV rows field by field, UTF-8 encoding them directly into one
+ * reusable {@code byte[]} that is handed to a {@link Sink} whenever it fills up.
+ * <p>
+ * No per-row {@code String} is built and nothing is kept once a block has been
+ * flushed, so memory use does not depend on the number of rows. Text fields are
+ * quoted the same way as {@link CsvTokenizer#escape(String, String)}; dates and
+ * grades are formatted without going through a formatter.
+ * <p>
+ * Rows are terminated with the platform line separator, as
+ * {@link java.nio.file.Files#write(Path, Iterable, java.nio.file.OpenOption...)}
+ * does. An instance is not thread-safe.
+ */
+public final class CsvWriter implements Closeable {
+  private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+  private static final char QUOTE = '"';
+
+  /** Destination of the encoded blocks. */
+  @FunctionalInterface
+  public interface Sink extends Closeable {
+    void write(byte[] block, int offset, int length) throws IOException;
+
+    /** Makes everything written so far durable and visible; called at most once, before close. */
+    default void commit() throws IOException {
+    }
+
+    default void close() throws IOException {
+    }
+
+    /** Writes to {@code channel} and closes it with the writer. */
+    static Sink of(WritableByteChannel channel) {
+      return new Sink() {
+        @Override
+        public void write(byte[] block, int offset, int length) throws IOException {
+          ByteBuffer buf = ByteBuffer.wrap(block, offset, length);
+          while (buf.hasRemaining()) {
+            channel.write(buf);
+          }
+        }
+
+        @Override
+        public void close() throws IOException {
+          channel.close();
+        }
+      };
+    }
+
+    /**
+     * Writes to a new temporary file next to {@code target}; {@link #commit()} syncs
+     * it and renames it over {@code target} in one atomic step, and closing
+     * without a commit deletes it.
+     */
+    static Sink atomic(Path target) throws IOException {
+      return new AtomicFileSink(target);
+    }
+
+    /** Writes to {@code out} and closes it with the writer. */
+    static Sink of(OutputStream out) {
+      return new Sink() {
+        @Override
+        public void write(byte[] block, int offset, int length) throws IOException {
+          out.write(block, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+          out.close();
+        }
+      };
+    }
+  }
+
+  private final Sink sink;
+  private final String delimiter;
+  private final byte[] lineSeparator;
+  private final byte[] buf;
+  private int pos;
+  private boolean rowStarted;
+  private long rows;
+  private long bytesWritten;
+
+  public CsvWriter(Sink sink, String delimiter) {
+    this(sink, delimiter, DEFAULT_BUFFER_SIZE);
+  }
+
+  public CsvWriter(Sink sink, String delimiter, int bufferSize) {
+    if (delimiter == null || delimiter.isEmpty()) {
+      throw new IllegalArgumentException("Delimiter must not be empty");
+    }
+    if (bufferSize < 64) {
+      throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+    }
+    this.sink = Objects.requireNonNull(sink, "sink");
+    this.delimiter = delimiter;
+    this.lineSeparator = utf8(System.lineSeparator());
+    this.buf = new byte[bufferSize];
+  }
+
+  /** Opens {@code file} for writing through a {@link FileChannel}, truncating it. */
+  public static CsvWriter open(Path file, String delimiter) throws IOException {
+    FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    return new CsvWriter(Sink.of(channel), delimiter);
+  }
+
+  /**
+   * Writes to a new temporary file next to {@code file}. {@link #commit()} syncs it
+   * and renames it over {@code file} in one atomic step; closing without a
+   * commit deletes it. Readers therefore see either the old file or the
+   * complete new one, even if the process dies halfway through.
+   */
+  public static CsvWriter openAtomic(Path file, String delimiter) throws IOException {
+    return new CsvWriter(Sink.atomic(file), delimiter);
+  }
+
+  // ===== FIELDS =====
+
+  /** Writes a text field, quoted if it needs to be; {@code null} is written as empty. */
+  public CsvWriter field(CharSequence value) throws IOException {
+    separate();
+    if (value == null) {
+      return this;
+    }
+    if (!needsQuotes(value)) {
+      putChars(value);
+      return this;
+    }
+    putAscii(QUOTE);
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == QUOTE) {
+        putAscii(QUOTE);
+      }
+      i = putChar(value, i);
+    }
+    putAscii(QUOTE);
+    return this;
+  }
+
+  /** Writes a field as is, for values known not to need quoting. */
+  public CsvWriter rawField(CharSequence value) throws IOException {
+    separate();
+    if (value != null) {
+      putChars(value);
+    }
+    return this;
+  }
+
+  /** Writes a date as {@code dd.MM.yyyy}. */
+  public CsvWriter field(LocalDate date) throws IOException {
+    if (!DateCodec.isFixedWidth(date)) {
+      return rawField(DateCodec.format(date));
+    }
+    separate();
+    ensure(DateCodec.LENGTH);
+    pos = DateCodec.formatTo(date, buf, pos);
+    return this;
+  }
+
+  /** Writes the grades as {@code [5.0,4.5]}. */
+  public CsvWriter field(GradeBook grades) throws IOException {
+    separate();
+    putAscii('[');
+    for (int i = 0; i < grades.size(); i++) {
+      if (i > 0) {
+        putAscii(',');
+      }
+      putGrade(GradeBook.valueOf(grades.code(i)));
+    }
+    putAscii(']');
+    return this;
+  }
+
+  /** Writes the items as {@code [a,b,c]}; {@code null} items are written as empty. */
+  public CsvWriter listField(Iterable<? extends CharSequence> items) throws IOException {
+    separate();
+    putAscii('[');
+    boolean first = true;
+    for (CharSequence item : items) {
+      if (!first) {
+        putAscii(',');
+      }
+      if (item != null) {
+        putChars(item);
+      }
+      first = false;
+    }
+    putAscii(']');
+    return this;
+  }
+
+  /** Writes {@code s} as a whole students.csv row: {@code id;index;first;last;dd.MM.yyyy;[grades]}. */
+  public CsvWriter row(Student s) throws IOException {
+    return rawField(s.getId())
+        .field(s.getIndexNumber())
+        .field(s.getFirstName())
+        .field(s.getLastName())
+        .field(s.getBirthDate())
+        .field(s.getGradeBook())
+        .endRow();
+  }
+
+  /** Ends the current row. */
+  public CsvWriter endRow() throws IOException {
+    ensure(lineSeparator.length);
+    System.arraycopy(lineSeparator, 0, buf, pos, lineSeparator.length);
+    pos += lineSeparator.length;
+    rowStarted = false;
+    rows++;
+    return this;
+  }
+
+  public long rowCount() {
+    return rows;
+  }
+
+  /** Bytes handed to the sink so far, plus those still buffered. */
+  public long byteCount() {
+    return bytesWritten + pos;
+  }
+
+  public void flush() throws IOException {
+    if (pos > 0) {
+      sink.write(buf, 0, pos);
+      bytesWritten += pos;
+      pos = 0;
+    }
+  }
+
+  /** Flushes the buffer and commits the sink; see {@link #openAtomic(Path, String)}. */
+  public void commit() throws IOException {
+    flush();
+    sink.commit();
+  }
+
+  /** Flushes the buffer and closes the sink, even if the flush fails. */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      sink.close();
+    }
+  }
+
+  // ===== ATOMIC FILE REPLACEMENT =====
+
+  private static final class AtomicFileSink implements Sink {
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private boolean committed;
+
+    AtomicFileSink(Path target) throws IOException {
+      this.target = target;
+      this.temp = createTemp(target);
+      this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+    }
+
+    // A name of its own, so two writers of the same target never share a temporary file
+    private static Path createTemp(Path target) throws IOException {
+      Path dir = target.toAbsolutePath().getParent();
+      while (true) {
+        Path candidate = dir.resolve(target.getFileName() + "."
+            + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+          return Files.createFile(candidate);
+        } catch (FileAlreadyExistsException e) {
+          // taken by another writer; try another name
+        }
+      }
+    }
+
+    @Override
+    public void write(byte[] block, int offset, int length) throws IOException {
+      ByteBuffer buf = ByteBuffer.wrap(block, offset, length);
+      while (buf.hasRemaining()) {
+        channel.write(buf);
+      }
+    }
+
+    @Override
+    public void commit() throws IOException {
+      channel.force(true);
+      channel.close();
+      try {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!committed) {
+        try {
+          channel.close();
+        } finally {
+          Files.deleteIfExists(temp);
+        }
+      }
+    }
+  }
+
+  // ===== ENCODING =====
+
+  private void separate() throws IOException {
+    if (rowStarted) {
+      putChars(delimiter);
+    }
+    rowStarted = true;
+  }
+
+  private boolean needsQuotes(CharSequence value) {
+    char first = delimiter.charAt(0);
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == QUOTE || c == '\n' || c == '\r') {
+        return true;
+      }
+      if (c == first && regionMatches(value, i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean regionMatches(CharSequence value, int at) {
+    if (at + delimiter.length() > value.length()) {
+      return false;
+    }
+    for (int k = 1; k < delimiter.length(); k++) {
+      if (value.charAt(at + k) != delimiter.charAt(k)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void putChars(CharSequence value) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      i = putChar(value, i);
+    }
+  }
+
+  /** Encodes the character at {@code i}; returns the index of the last char consumed. */
+  private int putChar(CharSequence value, int i) throws IOException {
+    ensure(4);
+    char c = value.charAt(i);
+    if (c < 0x80) {
+      buf[pos++] = (byte) c;
+    } else if (c < 0x800) {
+      buf[pos++] = (byte) (0xC0 | (c >> 6));
+      buf[pos++] = (byte) (0x80 | (c & 0x3F));
+    } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+        && Character.isLowSurrogate(value.charAt(i + 1))) {
+      int cp = Character.toCodePoint(c, value.charAt(++i));
+      buf[pos++] = (byte) (0xF0 | (cp >> 18));
+      buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+      buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+      buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+    } else if (Character.isSurrogate(c)) {
+      buf[pos++] = '?'; // unpaired surrogate, replaced as String.getBytes does
+    } else {
+      buf[pos++] = (byte) (0xE0 | (c >> 12));
+      buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+      buf[pos++] = (byte) (0x80 | (c & 0x3F));
+    }
+    return i;
+  }
+
+  private void putAscii(char c) throws IOException {
+    ensure(1);
+    buf[pos++] = (byte) c;
+  }
+
+  // Every grade on the scale is a whole or half number below 10
+  private void putGrade(double grade) throws IOException {
+    ensure(3);
+    int whole = (int) grade;
+    buf[pos++] = (byte) ('0' + whole);
+    buf[pos++] = '.';
+    buf[pos++] = (byte) (grade > whole ? '5' : '0');
+  }
+
+  private void ensure(int bytes) throws IOException {
+    if (buf.length - pos < bytes) {
+      flush();
+    }
+  }
+
+  private static byte[] utf8(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,139 @@
+// File: src/i2jp/oop/DateCodec.java
+// Parsing and formatting of dd.MM.yyyy dates without a DateTimeFormatter
+package i2jp.oop;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads and writes dates as {@code dd.MM.yyyy}, the format of every CSV file.
+ * <p>
+ * Dates of the usual shape, with a four-digit year from 1 to 9999, are handled
+ * digit by digit. Like {@code DateTimeFormatter.ofPattern("dd.MM.yyyy")} with
+ * its default smart resolver, a day past the end of its month is moved back to
+ * the last day ({@code 31.04.2000} is 30 April). Anything else goes to that
+ * formatter, so malformed and out-of-range dates fail with exactly the same
+ * {@link DateTimeParseException} as before.
+ */
+public final class DateCodec {
+  private static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+  /** Characters in a date of the fixed shape. */
+  public static final int LENGTH = 10;
+
+  private DateCodec() {
+  }
+
+  /**
+   * Parses {@code dd.MM.yyyy}.
+   *
+   * @throws DateTimeParseException if the text is not a valid date
+   */
+  public static LocalDate parse(CharSequence text) {
+    if (text.length() == LENGTH && text.charAt(2) == '.' && text.charAt(5) == '.') {
+      int day = digits(text, 0, 2);
+      int month = digits(text, 3, 2);
+      int year = digits(text, 6, 4);
+      LocalDate date = resolve(day, month, year);
+      if (date != null) {
+        return date;
+      }
+    }
+    return LocalDate.parse(text, DMY);
+  }
+
+  /**
+   * The date the formatter would resolve these fields to, or null if they are
+   * out of range (or negative, for a field that was not all digits) and the
+   * formatter has to report the error.
+   */
+  static LocalDate resolve(int day, int month, int year) {
+    if (day < 1 || day > 31 || month < 1 || month > 12 || year < 1 || year > 9999) {
+      return null;
+    }
+    if (day > 28) {
+      day = Math.min(day, Month.of(month).length(Year.isLeap(year)));
+    }
+    return LocalDate.of(year, month, day);
+  }
+
+  private static int digits(CharSequence text, int from, int count) {
+    int value = 0;
+    for (int i = from; i < from + count; i++) {
+      int d = text.charAt(i) - '0';
+      if (d < 0 || d > 9) {
+        return -1;
+      }
+      value = value * 10 + d;
+    }
+    return value;
+  }
+
+  /** Formats as {@code dd.MM.yyyy}. */
+  public static String format(LocalDate date) {
+    if (!isFixedWidth(date)) {
+      return date.format(DMY);
+    }
+    char[] buf = new char[LENGTH];
+    formatTo(date, buf, 0);
+    return new String(buf);
+  }
+
+  /** Appends the date as {@code dd.MM.yyyy}, so one builder can be reused. */
+  public static StringBuilder appendTo(LocalDate date, StringBuilder sb) {
+    if (!isFixedWidth(date)) {
+      return sb.append(date.format(DMY));
+    }
+    char[] buf = new char[LENGTH];
+    formatTo(date, buf, 0);
+    return sb.append(buf);
+  }
+
+  /** Whether the date takes exactly {@link #LENGTH} characters, i.e. its year is 1 to 9999. */
+  public static boolean isFixedWidth(LocalDate date) {
+    int year = date.getYear();
+    return year >= 1 && year <= 9999;
+  }
+
+  /**
+   * Writes a {@linkplain #isFixedWidth fixed-width} date into {@code buf} at
+   * {@code offset} as ASCII bytes.
+   *
+   * @return the offset after the date
+   */
+  public static int formatTo(LocalDate date, byte[] buf, int offset) {
+    putDigits(buf, offset, date.getDayOfMonth(), 2);
+    buf[offset + 2] = '.';
+    putDigits(buf, offset + 3, date.getMonthValue(), 2);
+    buf[offset + 5] = '.';
+    putDigits(buf, offset + 6, date.getYear(), 4);
+    return offset + LENGTH;
+  }
+
+  /** As {@link #formatTo(LocalDate, byte[], int)}, into a char buffer. */
+  public static int formatTo(LocalDate date, char[] buf, int offset) {
+    putDigits(buf, offset, date.getDayOfMonth(), 2);
+    buf[offset + 2] = '.';
+    putDigits(buf, offset + 3, date.getMonthValue(), 2);
+    buf[offset + 5] = '.';
+    putDigits(buf, offset + 6, date.getYear(), 4);
+    return offset + LENGTH;
+  }
+
+  private static void putDigits(byte[] buf, int offset, int value, int width) {
+    for (int k = offset + width - 1; k >= offset; k--) {
+      buf[k] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+  }
+
+  private static void putDigits(char[] buf, int offset, int value, int width) {
+    for (int k = offset + width - 1; k >= offset; k--) {
+      buf[k] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+// File: src/i2jp/oop/GradeBook.java
+// Compact primitive storage for a student's grades
+package i2jp.oop;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.RandomAccess;
+
+/**
+ * Grades of one student, stored as one-byte codes into the fixed grade scale
+ * in a growable {@code byte[]} instead of a list of boxed {@code Double}s.
+ * <p>
+ * A running sum and count are kept alongside the codes, so the average is
+ * available in constant time. Every grade on the scale is a multiple of 0.5,
+ * so the sum is kept in half points and never accumulates rounding error.
+ */
+public final class GradeBook {
+  /** The grade scale; a grade's code is its position in this array. */
+  private static final double[] SCALE = { 2.0, 3.0, 3.5, 4.0, 4.5, 5.0 };
+  private static final byte[] EMPTY = new byte[0];
+
+  private byte[] codes = EMPTY;
+  private int size;
+  private long halfPointSum;
+
+  /** Returns the code of {@code grade}, or -1 if it is not on the scale. */
+  public static int codeOf(double grade) {
+    double halves = grade * 2;
+    if (halves != Math.rint(halves)) {
+      return -1;
+    }
+    return switch ((int) halves) {
+      case 4 -> 0;
+      case 6 -> 1;
+      case 7 -> 2;
+      case 8 -> 3;
+      case 9 -> 4;
+      case 10 -> 5;
+      default -> -1;
+    };
+  }
+
+  /** Returns the grade value for a code returned by {@link #codeOf(double)}. */
+  public static double valueOf(int code) {
+    return SCALE[code];
+  }
+
+  /** Number of grades on the scale, i.e. one past the largest code. */
+  public static int scaleSize() {
+    return SCALE.length;
+  }
+
+  /**
+   * Appends a grade.
+   *
+   * @throws IllegalArgumentException if the grade is not on the scale
+   */
+  public void add(double grade) {
+    int code = codeOf(grade);
+    if (code < 0) {
+      throw new IllegalArgumentException("Grade not allowed: " + grade);
+    }
+    if (size == codes.length) {
+      codes = Arrays.copyOf(codes, Math.max(4, size * 2));
+    }
+    codes[size++] = (byte) code;
+    halfPointSum += (long) (SCALE[code] * 2);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public double get(int i) {
+    return SCALE[code(i)];
+  }
+
+  public int code(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Grade index " + i + " out of bounds for size " + size);
+    }
+    return codes[i];
+  }
+
+  public double sum() {
+    return halfPointSum / 2.0;
+  }
+
+  public OptionalDouble average() {
+    return size == 0 ? OptionalDouble.empty() : OptionalDouble.of(sum() / size);
+  }
+
+  /** Read-only live view of the grades as a list. */
+  public List<Double> asList() {
+    return new View();
+  }
+
+  /** Appends the grades as {@code [5.0,4.5]}. */
+  public StringBuilder appendTo(StringBuilder sb) {
+    sb.append('[');
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(SCALE[codes[i]]);
+    }
+    return sb.append(']');
+  }
+
+  private final class View extends AbstractList<Double> implements RandomAccess {
+    @Override
+    public Double get(int index) {
+      return GradeBook.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
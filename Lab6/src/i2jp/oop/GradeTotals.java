@@ -0,0 +1,57 @@
+// File: src/i2jp/oop/GradeTotals.java
+// Running grade count, sum and histogram of a group's members
+package i2jp.oop;
+
+import java.util.OptionalDouble;
+
+/**
+ * Running totals over the grades of a changing set of students: how many there
+ * are, their sum in half points and a histogram indexed by {@link GradeBook}
+ * code. {@link Group} adds a student's grade book when the student joins,
+ * subtracts it when the student leaves and adds single grades as they are
+ * given, so the average is read in constant time instead of by visiting every
+ * member. Thread-safe.
+ */
+final class GradeTotals {
+  private final long[] histogram = new long[GradeBook.scaleSize()];
+  private long count;
+  private long halfPointSum;
+
+  synchronized void add(int code) {
+    histogram[code]++;
+    count++;
+    halfPointSum += halfPoints(code);
+  }
+
+  synchronized void addAll(GradeBook grades) {
+    for (int i = 0; i < grades.size(); i++) {
+      add(grades.code(i));
+    }
+  }
+
+  synchronized void removeAll(GradeBook grades) {
+    for (int i = 0; i < grades.size(); i++) {
+      int code = grades.code(i);
+      histogram[code]--;
+      count--;
+      halfPointSum -= halfPoints(code);
+    }
+  }
+
+  synchronized long count() {
+    return count;
+  }
+
+  synchronized OptionalDouble average() {
+    return count == 0 ? OptionalDouble.empty() : OptionalDouble.of(halfPointSum / 2.0 / count);
+  }
+
+  /** Grade counts indexed by {@link GradeBook} code; a copy. */
+  synchronized long[] histogram() {
+    return histogram.clone();
+  }
+
+  private static long halfPoints(int code) {
+    return Math.round(GradeBook.valueOf(code) * 2);
+  }
+}
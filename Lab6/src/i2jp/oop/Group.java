@@ -2,13 +2,15 @@
 // Group class with Log4j 2 logging and CsvFormatException
 package i2jp.oop;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -17,12 +19,16 @@ public class Group {
   private static final Logger log = LogManager.getLogger(Group.class);
 
   private final String name;
-  private String description;
-  private final Set<Student> members = new HashSet<>();
-  private static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+  private volatile String description;
+  private final Set<Student> members = ConcurrentHashMap.newKeySet();
+  // grades of the current members, kept up to date as they join, leave and are graded
+  private final GradeTotals totals = new GradeTotals();
+  private final Student.GradeListener gradeListener = (s, code) -> totals.add(code);
+  private static final int IMPORT_BUFFER_SIZE = 64 * 1024;
+  private static final long PROGRESS_INTERVAL = 10_000;
 
   public Group(String name, String description) {
-    this.name = name;
+    this.name = NamePool.intern(name);
     this.description = description;
     log.info("Group created: name='{}', description='{}'", name, description);
   }
@@ -41,27 +47,25 @@ public class Group {
     this.description = description;
   }
 
+  /** Safe to call from many threads; a student ends up in at most one group. */
   public boolean addStudent(Student s) {
-    if (GroupRegistry.isAssigned(s.getId())) {
+    if (!GroupRegistry.tryAssign(s.getId(), name)) {
       String assigned = GroupRegistry.assignedGroup(s.getId());
       log.warn("Cannot add student id={} to group='{}' — already in group='{}'",
           s.getId(), name, assigned);
       return false;
     }
-    boolean ok = members.add(s);
-    if (ok) {
-      GroupRegistry.assign(s.getId(), name);
-      log.info("Student index={} added to group='{}'", s.getIndexNumber(), name);
-    } else {
-      log.debug("Student index={} already in group='{}'", s.getIndexNumber(), name);
-    }
-    return ok;
+    members.add(s);
+    s.setGradeListener(gradeListener, totals::addAll);
+    log.debug("Student index={} added to group='{}'", s.getIndexNumber(), name);
+    return true;
   }
 
   public boolean removeStudent(Student s) {
     boolean ok = members.remove(s);
     if (ok) {
-      GroupRegistry.unassign(s.getId());
+      s.clearGradeListener(gradeListener, totals::removeAll);
+      GroupRegistry.unassign(s.getId(), name);
       log.info("Student index={} removed from group='{}'", s.getIndexNumber(), name);
     } else {
       log.warn("Attempt to remove non-member index={} from group='{}'",
@@ -74,6 +78,20 @@ public class Group {
     return Collections.unmodifiableSet(members);
   }
 
+  /** Mean of all grades of the members, without visiting them. */
+  public OptionalDouble average() {
+    return totals.average();
+  }
+
+  public long getGradeCount() {
+    return totals.count();
+  }
+
+  /** Number of members' grades for each {@link GradeBook} code. */
+  public long[] getGradeHistogram() {
+    return totals.histogram();
+  }
+
   @Override
   public String toString() {
     return "Group " + name + " (" + description + ") size=" + members.size();
@@ -89,37 +107,24 @@ public class Group {
     log.info("Exporting {} students from group='{}' to file={}",
         members.size(), name, file);
 
-    List<String> lines = members.stream()
-        .map(s -> String.join(delimiter,
-            s.getId(),
-            s.getIndexNumber(),
-            s.getFirstName(),
-            s.getLastName(),
-            s.getBirthDateFormatted(),
-            formatGrades(s.getGrades())))
-        .peek(line -> log.debug("CSV export line: {}", line))
-        .collect(Collectors.toList());
-
-    try {
-      Files.write(file, lines);
-      log.info("Export successful: {} lines written to {}", lines.size(), file);
+    long rows;
+    try (CsvWriter out = CsvWriter.openAtomic(file, delimiter)) {
+      for (Student s : members) {
+        out.rawField(s.getId())
+            .field(s.getIndexNumber())
+            .field(s.getFirstName())
+            .field(s.getLastName())
+            .field(s.getBirthDate())
+            .field(s.getGradeBook())
+            .endRow();
+      }
+      out.commit();
+      rows = out.rowCount();
     } catch (IOException e) {
       log.error("Export failed for file={}: {}", file, e.getMessage(), e);
       throw e;
     }
-  }
-
-  private String formatGrades(List<Double> grades) {
-    if (grades.isEmpty())
-      return "[]";
-    StringBuilder sb = new StringBuilder("[");
-    for (int i = 0; i < grades.size(); i++) {
-      if (i > 0)
-        sb.append(",");
-      sb.append(String.format(Locale.US, "%.1f", grades.get(i)));
-    }
-    sb.append("]");
-    return sb.toString();
+    log.info("Export successful: {} lines written to {}", rows, file);
   }
 
   // ===== CSV IMPORT (with logging and CsvFormatException) =====
@@ -130,71 +135,150 @@ public class Group {
 
   public void importFromCsv(Path file, String delimiter)
       throws IOException, CsvFormatException {
+    importFromCsv(file, delimiter, ImportProgressListener.NONE);
+  }
+
+  /**
+   * Streams the file line by line through a buffered channel reader, so memory
+   * use stays bounded by the buffer size regardless of the file length.
+   */
+  public void importFromCsv(Path file, String delimiter, ImportProgressListener progress)
+      throws IOException, CsvFormatException {
 
     log.info("Importing students into group='{}' from file={}", name, file);
 
-    List<String> lines = Files.readAllLines(file);
-    int imported = 0;
-    int lineNumber = 0;
+    long imported = 0;
+    long lineNumber = 0;
+    CsvTokenizer fields = new CsvTokenizer(delimiter);
+    CsvTokenizer gradeList = new CsvTokenizer(",");
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        BufferedReader reader = new BufferedReader(
+            Channels.newReader(channel, StandardCharsets.UTF_8), IMPORT_BUFFER_SIZE)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (importLine(line, lineNumber, fields, gradeList)) {
+          imported++;
+        }
+        if (lineNumber % PROGRESS_INTERVAL == 0) {
+          progress.onProgress(lineNumber, imported);
+        }
+      }
+    }
 
-    for (String line : lines) {
-      lineNumber++;
-      log.debug("Processing CSV line {}: {}", lineNumber, line);
+    progress.onProgress(lineNumber, imported);
+    log.info("Import finished: {} students imported into group='{}'", imported, name);
+  }
 
-      String[] fields = line.split(Pattern.quote(delimiter));
-      if (fields.length != 6) {
-        String msg = String.format(
-            "Malformed CSV line %d (expected 6 fields, got %d): %s",
-            lineNumber, fields.length, line);
-        log.error(msg);
-        throw new CsvFormatException(msg);
-      }
+  /**
+   * Parses the file on the common fork/join pool, then enrolls the students in
+   * file order. Like the sequential import, students on lines before the first
+   * bad line are kept and the bad line is reported as a CsvFormatException.
+   */
+  public void importFromCsvParallel(Path file, String delimiter)
+      throws IOException, CsvFormatException {
+    importFromCsvParallel(file, new ParallelCsvImporter(delimiter));
+  }
 
-      try {
-        String id = fields[0];
-        String index = fields[1];
-        String first = fields[2];
-        String last = fields[3];
-        String birthDmy = fields[4];
-        String gradesRaw = fields[5];
+  public void importFromCsvParallel(Path file, ParallelCsvImporter importer)
+      throws IOException, CsvFormatException {
 
-        List<Double> grades = parseGrades(gradesRaw);
+    log.info("Importing students in parallel into group='{}' from file={}", name, file);
 
-        Student s = new Student(first, last, birthDmy, Person.Gender.OTHER, index);
-        for (double g : grades) {
+    ParallelCsvImporter.Result result = importer.parse(file);
+    ParallelCsvImporter.RowError firstError =
+        result.getErrors().isEmpty() ? null : result.getErrors().get(0);
+    int imported = 0;
+
+    for (ParallelCsvImporter.Row row : result.getRows()) {
+      if (firstError != null && row.getLineNumber() > firstError.getLineNumber()) {
+        break;
+      }
+      try {
+        if (!row.getInvalidGrades().isEmpty()) {
+          throw new CsvFormatException("Invalid grade value: " + row.getInvalidGrades().get(0));
+        }
+        Student s = row.toStudent();
+        for (double g : row.getGrades()) {
           s.addGrade(g);
         }
-
         if (addStudent(s)) {
           imported++;
         }
       } catch (Exception e) {
-        String msg = String.format("Error parsing CSV line %d: %s", lineNumber, e.getMessage());
+        String msg = String.format("Error parsing CSV line %d: %s", row.getLineNumber(), e.getMessage());
         log.error(msg, e);
         throw new CsvFormatException(msg, e);
       }
     }
 
-    log.info("Import finished: {} students imported into group='{}'", imported, name);
+    if (firstError != null) {
+      log.error(firstError.getMessage());
+      throw new CsvFormatException(firstError.getMessage(), firstError.getCause());
+    }
+    log.info("Parallel import finished: {} students imported into group='{}'", imported, name);
   }
 
-  private List<Double> parseGrades(String gradesRaw) throws CsvFormatException {
-    List<Double> grades = new ArrayList<>();
-    String inner = gradesRaw.replace("[", "").replace("]", "").trim();
+  private boolean importLine(String line, long lineNumber, CsvTokenizer fields,
+      CsvTokenizer gradeList) throws CsvFormatException {
+    if (log.isDebugEnabled()) {
+      log.debug("Processing CSV line {}: {}", lineNumber, line);
+    }
 
-    if (!inner.isEmpty()) {
-      String[] parts = inner.split(",");
-      for (String p : parts) {
-        try {
-          double grade = Double.parseDouble(p.trim());
-          grades.add(grade);
-        } catch (NumberFormatException e) {
-          throw new CsvFormatException("Invalid grade value: " + p, e);
-        }
+    int fieldCount;
+    try {
+      fieldCount = fields.tokenize(line);
+    } catch (IllegalArgumentException e) {
+      String msg = String.format("Malformed CSV line %d (%s): %s",
+          lineNumber, e.getMessage(), line);
+      log.error(msg);
+      throw new CsvFormatException(msg, e);
+    }
+    if (fieldCount != 6) {
+      String msg = String.format(
+          "Malformed CSV line %d (expected 6 fields, got %d): %s",
+          lineNumber, fieldCount, line);
+      log.error(msg);
+      throw new CsvFormatException(msg);
+    }
+
+    try {
+      String index = fields.field(1);
+      String first = fields.field(2);
+      String last = fields.field(3);
+      String birthDmy = fields.field(4);
+
+      double[] grades = parseGrades(fields, 5, gradeList);
+
+      Student s = new Student(first, last, birthDmy, Person.Gender.OTHER, index);
+      for (double g : grades) {
+        s.addGrade(g);
       }
+
+      return addStudent(s);
+    } catch (Exception e) {
+      String msg = String.format("Error parsing CSV line %d: %s", lineNumber, e.getMessage());
+      log.error(msg, e);
+      throw new CsvFormatException(msg, e);
     }
+  }
 
-    log.trace("Parsed {} grades from: {}", grades.size(), gradesRaw);
+  private double[] parseGrades(CsvTokenizer fields, int field, CsvTokenizer gradeList)
+      throws CsvFormatException {
+    int n = gradeList.tokenizeList(fields, field);
+    double[] grades = new double[n];
+    for (int i = 0; i < n; i++) {
+      try {
+        grades[i] = gradeList.doubleField(i);
+      } catch (NumberFormatException e) {
+        throw new CsvFormatException("Invalid grade value: " + gradeList.field(i), e);
+      }
+    }
+
+    if (log.isTraceEnabled()) {
+      log.trace("Parsed {} grades from field {}", n, field);
+    }
     return grades;
   }
 }
\ No newline at end of file
@@ -2,17 +2,24 @@
 // GroupRegistry with Log4j 2 logging integration
 package i2jp.oop;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Global student → group assignments, safe to use from many threads.
+ * <p>
+ * Backed by a ConcurrentHashMap, whose per-bin locking lets enrollments of
+ * different students proceed in parallel. {@link #tryAssign(String, String)} is
+ * the atomic check-and-assign that keeps each student in at most one group.
+ */
 public class GroupRegistry {
   private static final Logger log = LogManager.getLogger(GroupRegistry.class);
   
   // Maps student/person ID → group name
-  private static final Map<String, String> REG = new HashMap<>();
+  private static final ConcurrentMap<String, String> REG = new ConcurrentHashMap<>();
 
   /** Checks whether the student is already assigned to any group. */
   public static boolean isAssigned(String personId) {
@@ -28,10 +35,30 @@ public class GroupRegistry {
     return group;
   }
 
-  /** Registers a student as belonging to a given group. */
+  /**
+   * Atomically assigns the student to the group if they are not assigned yet.
+   *
+   * @return true if the assignment was made, false if the student already
+   *         belongs to a group (possibly this one)
+   */
+  public static boolean tryAssign(String personId, String groupName) {
+    String existing = REG.putIfAbsent(personId, groupName);
+    if (existing == null) {
+      log.debug("Assigned personId={} to group={}", personId, groupName);
+      return true;
+    }
+    log.debug("personId={} already assigned to group={}, not assigning to {}",
+        personId, existing, groupName);
+    return false;
+  }
+
+  /**
+   * Registers a student as belonging to a given group, replacing any existing
+   * assignment. Prefer {@link #tryAssign(String, String)} for enrollment.
+   */
   public static void assign(String personId, String groupName) {
     REG.put(personId, groupName);
-    log.info("Assigned personId={} to group={}", personId, groupName);
+    log.debug("Assigned personId={} to group={}", personId, groupName);
   }
 
   /** Removes a student from the registry, freeing their assignment. */
@@ -44,6 +71,20 @@ public class GroupRegistry {
     }
   }
   
+  /**
+   * Removes the student's assignment only if it still points to the given
+   * group, so a stale removal cannot undo a newer enrollment elsewhere.
+   */
+  public static boolean unassign(String personId, String groupName) {
+    boolean removed = REG.remove(personId, groupName);
+    if (removed) {
+      log.debug("Unassigned personId={} from group={}", personId, groupName);
+    } else {
+      log.warn("personId={} is not assigned to group={}, nothing to unassign", personId, groupName);
+    }
+    return removed;
+  }
+  
   /** Clears all assignments (useful for testing or resetting). */
   public static void clear() {
     int size = REG.size();
@@ -0,0 +1,234 @@
+// File: src/i2jp/oop/GroupStatistics.java
+// Grade statistics of groups, gathered in one pass into primitive counters
+package i2jp.oop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Grade statistics of a set of students: mean and median grade, a histogram
+ * over the grade scale, the best students by average and the number failing.
+ * <p>
+ * One pass over the members fills primitive counters. The histogram is indexed
+ * by {@link GradeBook} code, so the median is read off it instead of sorting
+ * grades, and the best students are kept in a heap of at most N. Statistics of
+ * several groups {@link #merge merge} into overall figures without visiting the
+ * students again, which lets {@link #compute(Collection, int)} work on the
+ * groups in parallel.
+ */
+public final class GroupStatistics {
+  private static final Logger log = LogManager.getLogger(GroupStatistics.class);
+
+  /** Students whose average is below this are counted as failing. */
+  public static final double PASSING_AVERAGE = 3.0;
+
+  // Best first; ties broken by name so the ranking does not depend on iteration order
+  private static final Comparator<Student> RANKING = Comparator
+      .comparingDouble(GroupStatistics::averageOf).reversed()
+      .thenComparing(Student::getLastName)
+      .thenComparing(Student::getFirstName)
+      .thenComparing(Student::getIndexNumber);
+
+  private final String name;
+  private final int topN;
+  private final long[] histogram = new long[GradeBook.scaleSize()];
+  private long gradeCount;
+  private long halfPointSum;
+  private int studentCount;
+  private int gradedCount;
+  private int failingCount;
+  // worst of the current top N at the head
+  private final PriorityQueue<Student> top;
+
+  private GroupStatistics(String name, int topN) {
+    this.name = name;
+    this.topN = topN;
+    this.top = new PriorityQueue<>(Math.max(1, topN + 1), RANKING.reversed());
+  }
+
+  /** Statistics of {@code students}, keeping the best {@code topN} of them. */
+  public static GroupStatistics of(String name, Collection<Student> students, int topN) {
+    GroupStatistics stats = new GroupStatistics(name, topN);
+    for (Student s : students) {
+      stats.add(s);
+    }
+    return stats;
+  }
+
+  /**
+   * Statistics of every group, computed in parallel, sorted by group name and
+   * merged into overall figures.
+   */
+  public static Report compute(Collection<Group> groups, int topN) {
+    long start = System.nanoTime();
+    List<GroupStatistics> perGroup = groups.parallelStream()
+        .map(g -> of(g.getName(), g.getMembers(), topN))
+        .sorted(Comparator.comparing(GroupStatistics::getName))
+        .collect(Collectors.toList());
+    GroupStatistics overall = new GroupStatistics("All groups", topN);
+    for (GroupStatistics s : perGroup) {
+      overall.merge(s);
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Computed statistics for {} groups ({} students) in {} us",
+          perGroup.size(), overall.studentCount, (System.nanoTime() - start) / 1000);
+    }
+    return new Report(perGroup, overall);
+  }
+
+  private void add(Student s) {
+    GradeBook grades = s.getGradeBook();
+    studentCount++;
+    int n = grades.size();
+    if (n == 0) {
+      return;
+    }
+    for (int i = 0; i < n; i++) {
+      histogram[grades.code(i)]++;
+    }
+    gradeCount += n;
+    halfPointSum += Math.round(grades.sum() * 2);
+    gradedCount++;
+    if (grades.sum() / n < PASSING_AVERAGE) {
+      failingCount++;
+    }
+    offer(s);
+  }
+
+  /** Adds another set's figures to these. */
+  private void merge(GroupStatistics other) {
+    for (int code = 0; code < histogram.length; code++) {
+      histogram[code] += other.histogram[code];
+    }
+    gradeCount += other.gradeCount;
+    halfPointSum += other.halfPointSum;
+    studentCount += other.studentCount;
+    gradedCount += other.gradedCount;
+    failingCount += other.failingCount;
+    for (Student s : other.top) {
+      offer(s);
+    }
+  }
+
+  private void offer(Student s) {
+    if (topN <= 0) {
+      return;
+    }
+    top.add(s);
+    if (top.size() > topN) {
+      top.poll();
+    }
+  }
+
+  private static double averageOf(Student s) {
+    GradeBook grades = s.getGradeBook();
+    return grades.isEmpty() ? 0 : grades.sum() / grades.size();
+  }
+
+  // ===== RESULTS =====
+
+  public String getName() {
+    return name;
+  }
+
+  public int getStudentCount() {
+    return studentCount;
+  }
+
+  /** Students with at least one grade. */
+  public int getGradedCount() {
+    return gradedCount;
+  }
+
+  public long getGradeCount() {
+    return gradeCount;
+  }
+
+  /** Graded students whose average is below {@link #PASSING_AVERAGE}. */
+  public int getFailingCount() {
+    return failingCount;
+  }
+
+  /** Mean of all grades. */
+  public OptionalDouble getMean() {
+    return gradeCount == 0 ? OptionalDouble.empty() : OptionalDouble.of(halfPointSum / 2.0 / gradeCount);
+  }
+
+  /** Median of all grades; the mean of the two middle ones if their number is even. */
+  public OptionalDouble getMedian() {
+    if (gradeCount == 0) {
+      return OptionalDouble.empty();
+    }
+    double lower = gradeAtRank((gradeCount - 1) / 2);
+    double upper = gradeAtRank(gradeCount / 2);
+    return OptionalDouble.of((lower + upper) / 2);
+  }
+
+  private double gradeAtRank(long rank) {
+    long seen = 0;
+    for (int code = 0; code < histogram.length; code++) {
+      seen += histogram[code];
+      if (rank < seen) {
+        return GradeBook.valueOf(code);
+      }
+    }
+    throw new IllegalStateException("Rank " + rank + " beyond " + gradeCount + " grades");
+  }
+
+  /** Number of grades equal to {@code grade}. */
+  public long getCount(double grade) {
+    int code = GradeBook.codeOf(grade);
+    return code < 0 ? 0 : histogram[code];
+  }
+
+  /** Best students by average, best first. */
+  public List<Student> getTopStudents() {
+    List<Student> result = new ArrayList<>(top);
+    result.sort(RANKING);
+    return result;
+  }
+
+  /** Grade counts as {@code 2.0:1 3.0:0 ... 5.0:4}. */
+  public String formatHistogram() {
+    return formatHistogram(histogram);
+  }
+
+  /** Formats grade counts indexed by {@link GradeBook} code, as {@link #formatHistogram()} does. */
+  public static String formatHistogram(long[] histogram) {
+    StringBuilder sb = new StringBuilder();
+    for (int code = 0; code < histogram.length; code++) {
+      if (code > 0) {
+        sb.append(' ');
+      }
+      sb.append(GradeBook.valueOf(code)).append(':').append(histogram[code]);
+    }
+    return sb.toString();
+  }
+
+  /** Statistics of each group and of all of them together. */
+  public static final class Report {
+    private final List<GroupStatistics> groups;
+    private final GroupStatistics overall;
+
+    private Report(List<GroupStatistics> groups, GroupStatistics overall) {
+      this.groups = groups;
+      this.overall = overall;
+    }
+
+    public List<GroupStatistics> getGroups() {
+      return groups;
+    }
+
+    public GroupStatistics getOverall() {
+      return overall;
+    }
+  }
+}
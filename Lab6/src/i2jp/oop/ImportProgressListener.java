@@ -0,0 +1,22 @@
+// File: src/i2jp/oop/ImportProgressListener.java
+// Callback interface for reporting CSV import progress
+package i2jp.oop;
+
+/**
+ * Receives periodic progress notifications while a CSV file is being
+ * imported line by line.
+ */
+@FunctionalInterface
+public interface ImportProgressListener {
+
+  /** Listener that ignores all notifications. */
+  ImportProgressListener NONE = (linesRead, imported) -> { };
+
+  /**
+   * Called every few thousand lines and once more when the import finishes.
+   *
+   * @param linesRead number of lines consumed from the file so far
+   * @param imported  number of students successfully added so far
+   */
+  void onProgress(long linesRead, long imported);
+}
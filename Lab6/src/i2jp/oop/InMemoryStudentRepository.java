@@ -0,0 +1,38 @@
+// File: src/i2jp/oop/InMemoryStudentRepository.java
+// Students kept as heap objects in a HashMap
+package i2jp.oop;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/** The default repository: a {@link HashMap} from id to student. */
+public final class InMemoryStudentRepository implements StudentRepository {
+  private final Map<String, Student> students = new HashMap<>();
+
+  @Override
+  public void put(Student s) {
+    students.put(s.getId(), s);
+  }
+
+  @Override
+  public Student get(String id) {
+    return students.get(id);
+  }
+
+  @Override
+  public int size() {
+    return students.size();
+  }
+
+  @Override
+  public Iterator<Student> iterator() {
+    return students.values().iterator();
+  }
+
+  @Override
+  public Stream<Student> streamAll() {
+    return students.values().stream();
+  }
+}
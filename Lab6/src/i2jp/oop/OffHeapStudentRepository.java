@@ -0,0 +1,347 @@
+// File: src/i2jp/oop/OffHeapStudentRepository.java
+// Students kept as fixed-width records in direct buffers, outside the Java heap
+package i2jp.oop;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Repository that keeps students in direct {@link ByteBuffer}s rather than as
+ * heap objects, so the heap and the garbage collector's work do not grow with
+ * the number of students.
+ * <p>
+ * Each student is a 48-byte record: the id number, the birth date in epoch
+ * days, the gender, and references into a string arena holding the first and
+ * last name, the index number and the grade codes. Records and arena are
+ * allocated in chunks as they fill up. Ids are found through an open-addressing
+ * hash table from id number to record, itself in a direct buffer.
+ * <p>
+ * {@link #get(String)} builds a {@link Student} from its record. The student
+ * is remembered weakly, so while a group or the caller still holds it, later
+ * reads return the same object; once it is unreachable only the record remains.
+ * A stored student is a snapshot: grades added to the object afterwards are not
+ * written back unless it is {@link #put} again. An instance is not thread-safe.
+ * <p>
+ * Putting a student again overwrites its record. A name or index number that
+ * is no longer than before is rewritten where it is, and a grade list has room
+ * to grow by a few grades in place; anything else goes to a new arena entry and
+ * leaves the old one behind. Once more than half of the arena, and at least one
+ * chunk, is such garbage, the live entries are copied into fresh chunks, so a
+ * registry that keeps being edited stays within about twice its live size.
+ */
+public final class OffHeapStudentRepository implements StudentRepository {
+  // Record layout
+  private static final int ID = 0;        // long, Person#getIdValue
+  private static final int BIRTH = 8;     // int, epoch day
+  private static final int GENDER = 12;   // byte, ordinal
+  private static final int FIRST = 16;    // long, arena reference
+  private static final int LAST = 24;     // long, arena reference
+  private static final int INDEX = 32;    // long, arena reference
+  private static final int GRADES = 40;   // long, arena reference
+  private static final int RECORD_SIZE = 48;
+
+  private static final int RECORDS_PER_CHUNK = 1 << 16;
+  private static final int ARENA_CHUNK_SIZE = 4 << 20;
+  // Grade lists are given room for a multiple of this many grades
+  private static final int GRADE_SLACK = 8;
+  private static final int[] STRING_FIELDS = {FIRST, LAST, INDEX};
+  // Index slot: id number + 1 (0 marks a free slot), then the record number
+  private static final int SLOT_SIZE = 12;
+  private static final int MIN_INDEX_CAPACITY = 1 << 10;
+  private static final int MAX_INDEX_CAPACITY = 1 << 27;
+
+  private static final Person.Gender[] GENDERS = Person.Gender.values();
+
+  private final List<ByteBuffer> records = new ArrayList<>();
+  private final List<ByteBuffer> arena = new ArrayList<>();
+  private int arenaPos;
+  // Bytes reserved in the arena, and how many of them old entries no record refers to any more
+  private long arenaBytes;
+  private long garbage;
+  private int size;
+
+  private ByteBuffer index = ByteBuffer.allocateDirect(MIN_INDEX_CAPACITY * SLOT_SIZE);
+  private int indexCapacity = MIN_INDEX_CAPACITY;
+
+  // Students handed out and still reachable elsewhere, by id number
+  private final Map<Long, Ref> live = new HashMap<>();
+  private final ReferenceQueue<Student> collected = new ReferenceQueue<>();
+
+  private static final class Ref extends WeakReference<Student> {
+    final long number;
+
+    Ref(Student student, ReferenceQueue<Student> queue) {
+      super(student, queue);
+      this.number = student.getIdValue();
+    }
+  }
+
+  @Override
+  public void put(Student s) {
+    expungeCollected();
+    long number = s.getIdValue();
+    int row = find(number);
+    boolean added = row < 0;
+    if (added) {
+      row = size;
+      if (row % RECORDS_PER_CHUNK == 0) {
+        records.add(ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * RECORD_SIZE));
+      }
+      size++;
+      insert(number, row);
+    }
+    ByteBuffer chunk = records.get(row / RECORDS_PER_CHUNK);
+    int at = (row % RECORDS_PER_CHUNK) * RECORD_SIZE;
+    chunk.putLong(at + ID, number);
+    chunk.putInt(at + BIRTH, (int) s.getBirthDate().toEpochDay());
+    chunk.put(at + GENDER, (byte) s.getGender().ordinal());
+    chunk.putLong(at + FIRST, writeString(added ? -1 : chunk.getLong(at + FIRST), s.getFirstName()));
+    chunk.putLong(at + LAST, writeString(added ? -1 : chunk.getLong(at + LAST), s.getLastName()));
+    chunk.putLong(at + INDEX, writeString(added ? -1 : chunk.getLong(at + INDEX), s.getIndexNumber()));
+    chunk.putLong(at + GRADES, writeGrades(added ? -1 : chunk.getLong(at + GRADES), s.getGradeBook()));
+    live.put(number, new Ref(s, collected));
+    if (garbage > ARENA_CHUNK_SIZE && garbage * 2 > arenaBytes) {
+      compactArena();
+    }
+  }
+
+  @Override
+  public Student get(String id) {
+    // parseExact rejects lower case, as a map keyed by the id string would
+    long number = PersonIds.parseExact(id);
+    if (number < 0) {
+      return null;
+    }
+    int row = find(number);
+    return row < 0 ? null : student(row);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Iterator<Student> iterator() {
+    return new Iterator<>() {
+      private int row;
+
+      @Override
+      public boolean hasNext() {
+        return row < size;
+      }
+
+      @Override
+      public Student next() {
+        if (row >= size) {
+          throw new NoSuchElementException();
+        }
+        return student(row++);
+      }
+    };
+  }
+
+  /** Direct memory held by records, arena and index, in bytes. */
+  public long offHeapBytes() {
+    long bytes = index.capacity();
+    for (ByteBuffer b : records) {
+      bytes += b.capacity();
+    }
+    for (ByteBuffer b : arena) {
+      bytes += b.capacity();
+    }
+    return bytes;
+  }
+
+  private Student student(int row) {
+    expungeCollected();
+    ByteBuffer chunk = records.get(row / RECORDS_PER_CHUNK);
+    int at = (row % RECORDS_PER_CHUNK) * RECORD_SIZE;
+    long number = chunk.getLong(at + ID);
+    Ref ref = live.get(number);
+    Student s = ref == null ? null : ref.get();
+    if (s != null) {
+      return s;
+    }
+    s = new Student(number, readString(chunk.getLong(at + FIRST)), readString(chunk.getLong(at + LAST)),
+        LocalDate.ofEpochDay(chunk.getInt(at + BIRTH)), GENDERS[chunk.get(at + GENDER)],
+        readString(chunk.getLong(at + INDEX)));
+    readGrades(chunk.getLong(at + GRADES), s.getGradeBook());
+    live.put(number, new Ref(s, collected));
+    return s;
+  }
+
+  private void expungeCollected() {
+    Ref ref;
+    while ((ref = (Ref) collected.poll()) != null) {
+      live.remove(ref.number, ref);
+    }
+  }
+
+  // ===== ARENA =====
+
+  // A reference is the chunk number in the high half and the offset in the low half
+  private long reserve(int bytes) {
+    if (arena.isEmpty() || arena.get(arena.size() - 1).capacity() - arenaPos < bytes) {
+      arena.add(ByteBuffer.allocateDirect(Math.max(ARENA_CHUNK_SIZE, bytes)));
+      arenaPos = 0;
+    }
+    long ref = ((long) (arena.size() - 1) << 32) | arenaPos;
+    arenaPos += bytes;
+    arenaBytes += bytes;
+    return ref;
+  }
+
+  // The length stored at the start of an entry: bytes of a string, or number of grades
+  private int lengthAt(long ref) {
+    return arena.get((int) (ref >>> 32)).getInt((int) ref);
+  }
+
+  // Grades an entry is reserved for when it holds count of them; a list rewritten in place
+  // never needs more than that, so the capacity worked out from its count stays within the entry
+  private static int gradeCapacity(int count) {
+    return (count + GRADE_SLACK) & ~(GRADE_SLACK - 1);
+  }
+
+  // Rewrites the entry at old if the string fits, otherwise writes a new one; old is -1 if none
+  private long writeString(long old, String s) {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    long ref;
+    if (old >= 0 && bytes.length <= lengthAt(old)) {
+      ref = old;
+    } else {
+      if (old >= 0) {
+        garbage += 4 + lengthAt(old);
+      }
+      ref = reserve(4 + bytes.length);
+    }
+    ByteBuffer chunk = arena.get((int) (ref >>> 32));
+    int at = (int) ref;
+    chunk.putInt(at, bytes.length);
+    chunk.put(at + 4, bytes);
+    return ref;
+  }
+
+  private String readString(long ref) {
+    ByteBuffer chunk = arena.get((int) (ref >>> 32));
+    int at = (int) ref;
+    byte[] bytes = new byte[chunk.getInt(at)];
+    chunk.get(at + 4, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private long writeGrades(long old, GradeBook grades) {
+    int n = grades.size();
+    long ref;
+    if (old >= 0 && gradeCapacity(n) <= gradeCapacity(lengthAt(old))) {
+      ref = old;
+    } else {
+      if (old >= 0) {
+        garbage += 4 + gradeCapacity(lengthAt(old));
+      }
+      ref = reserve(4 + gradeCapacity(n));
+    }
+    ByteBuffer chunk = arena.get((int) (ref >>> 32));
+    int at = (int) ref;
+    chunk.putInt(at, n);
+    for (int i = 0; i < n; i++) {
+      chunk.put(at + 4 + i, (byte) grades.code(i));
+    }
+    return ref;
+  }
+
+  private void readGrades(long ref, GradeBook into) {
+    ByteBuffer chunk = arena.get((int) (ref >>> 32));
+    int at = (int) ref;
+    int n = chunk.getInt(at);
+    for (int i = 0; i < n; i++) {
+      into.add(GradeBook.valueOf(chunk.get(at + 4 + i)));
+    }
+  }
+
+  // Copies the entries of every record into fresh chunks, leaving the garbage behind
+  private void compactArena() {
+    List<ByteBuffer> old = new ArrayList<>(arena);
+    arena.clear();
+    arenaPos = 0;
+    arenaBytes = 0;
+    garbage = 0;
+    for (int row = 0; row < size; row++) {
+      ByteBuffer chunk = records.get(row / RECORDS_PER_CHUNK);
+      int at = (row % RECORDS_PER_CHUNK) * RECORD_SIZE;
+      for (int field : STRING_FIELDS) {
+        chunk.putLong(at + field, copyEntry(old, chunk.getLong(at + field), false));
+      }
+      chunk.putLong(at + GRADES, copyEntry(old, chunk.getLong(at + GRADES), true));
+    }
+  }
+
+  private long copyEntry(List<ByteBuffer> from, long ref, boolean grades) {
+    ByteBuffer source = from.get((int) (ref >>> 32));
+    int at = (int) ref;
+    int length = source.getInt(at);
+    long copy = reserve(4 + (grades ? gradeCapacity(length) : length));
+    arena.get((int) (copy >>> 32)).put((int) copy, source, at, 4 + length);
+    return copy;
+  }
+
+  // ===== INDEX =====
+
+  private static int slotOf(long key, int capacity) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (capacity - 1);
+  }
+
+  private int find(long number) {
+    long key = number + 1;
+    for (int slot = slotOf(key, indexCapacity); ; slot = (slot + 1) & (indexCapacity - 1)) {
+      long k = index.getLong(slot * SLOT_SIZE);
+      if (k == 0) {
+        return -1;
+      }
+      if (k == key) {
+        return index.getInt(slot * SLOT_SIZE + 8);
+      }
+    }
+  }
+
+  private void insert(long number, int row) {
+    if (size * 2 > indexCapacity) {
+      growIndex();
+    }
+    place(index, indexCapacity, number + 1, row);
+  }
+
+  private static void place(ByteBuffer table, int capacity, long key, int row) {
+    int slot = slotOf(key, capacity);
+    while (table.getLong(slot * SLOT_SIZE) != 0) {
+      slot = (slot + 1) & (capacity - 1);
+    }
+    table.putLong(slot * SLOT_SIZE, key);
+    table.putInt(slot * SLOT_SIZE + 8, row);
+  }
+
+  private void growIndex() {
+    if (indexCapacity >= MAX_INDEX_CAPACITY) {
+      throw new IllegalStateException("Off-heap repository is full (" + size + " students)");
+    }
+    int capacity = indexCapacity * 2;
+    ByteBuffer table = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+    for (int slot = 0; slot < indexCapacity; slot++) {
+      long key = index.getLong(slot * SLOT_SIZE);
+      if (key != 0) {
+        place(table, capacity, key, index.getInt(slot * SLOT_SIZE + 8));
+      }
+    }
+    index = table;
+    indexCapacity = capacity;
+  }
+}
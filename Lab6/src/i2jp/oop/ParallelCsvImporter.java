@@ -0,0 +1,357 @@
+// File: src/i2jp/oop/ParallelCsvImporter.java
+// Fork/join parser for student CSV files, split at line boundaries
+package i2jp.oop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Parses a students CSV file ({@code id;index;first;last;dd.MM.yyyy;[grades]})
+ * on a {@link ForkJoinPool}.
+ * <p>
+ * The file is memory-mapped and split recursively at newline boundaries; each
+ * chunk is tokenized, and its dates and grades parsed, on its own worker. The
+ * chunk results are then concatenated in file order and renumbered, so the
+ * {@link Result} is identical to what a single-threaded pass would produce.
+ * Duplicate ids are detected during that final ordered pass: the first
+ * occurrence wins and later ones are reported as errors.
+ * <p>
+ * Only parsing runs in parallel. Creating {@link Student} objects and enrolling
+ * them stays with the caller, so person ids are still handed out in file order
+ * and {@link GroupRegistry} is only ever touched from one thread.
+ */
+public class ParallelCsvImporter {
+  private static final Logger log = LogManager.getLogger(ParallelCsvImporter.class);
+
+  private static final int FIELDS = 6;
+  private static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+  private final String delimiter;
+  private final ForkJoinPool pool;
+  private final int chunkBytes;
+  private final boolean asciiDelimiter;
+
+  public ParallelCsvImporter(String delimiter) {
+    this(delimiter, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+  }
+
+  public ParallelCsvImporter(String delimiter, ForkJoinPool pool, int chunkBytes) {
+    if (chunkBytes <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkBytes);
+    }
+    this.delimiter = Objects.requireNonNull(delimiter, "delimiter");
+    this.pool = Objects.requireNonNull(pool, "pool");
+    this.chunkBytes = chunkBytes;
+    this.asciiDelimiter = delimiter.chars().allMatch(c -> c < 0x80);
+    new CsvTokenizer(delimiter); // validate early
+  }
+
+  /** Parses the whole file; malformed rows are collected, not thrown. */
+  public Result parse(Path file) throws IOException {
+    log.info("Parallel parse of {} with parallelism={}", file, pool.getParallelism());
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File too large for parallel import (over 2 GB): " + file);
+      }
+      ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      Chunks chunks = pool.invoke(new ParseTask(data, 0, (int) size));
+      Result result = chunks.merge();
+      log.info("Parallel parse finished: {} lines, {} rows, {} errors in {} chunks",
+          result.getLineCount(), result.getRows().size(), result.getErrors().size(),
+          chunks.leaves.size());
+      return result;
+    }
+  }
+
+  // ===== RESULT TYPES =====
+
+  /** A successfully parsed student row. */
+  public static final class Row {
+    private long lineNumber;
+    private final String id;
+    private final String indexNumber;
+    private final String firstName;
+    private final String lastName;
+    private final LocalDate birthDate;
+    private final double[] grades;
+    private final List<String> invalidGrades;
+
+    Row(long lineNumber, String id, String indexNumber, String firstName, String lastName,
+        LocalDate birthDate, double[] grades, List<String> invalidGrades) {
+      this.lineNumber = lineNumber;
+      this.id = id;
+      this.indexNumber = indexNumber;
+      this.firstName = firstName;
+      this.lastName = lastName;
+      this.birthDate = birthDate;
+      this.grades = grades;
+      this.invalidGrades = invalidGrades;
+    }
+
+    public long getLineNumber() { return lineNumber; }
+    public String getId() { return id; }
+    public String getIndexNumber() { return indexNumber; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public LocalDate getBirthDate() { return birthDate; }
+
+    /** Grade values that parsed as numbers, in file order. */
+    public double[] getGrades() { return grades.clone(); }
+
+    /** Grade entries that were not numbers; usually empty. */
+    public List<String> getInvalidGrades() { return invalidGrades; }
+
+    /** Creates the student; grades are left to the caller to add. */
+    public Student toStudent() {
+      return new Student(firstName, lastName, birthDate, Person.Gender.OTHER, indexNumber);
+    }
+
+    /**
+     * Like {@link #toStudent()}, but keeps the id in the file if it is a person
+     * id, so the student is stored under the id that duplicates were checked on.
+     */
+    public Student toStoredStudent() {
+      long number = PersonIds.parseExact(id);
+      if (number < 0) {
+        return toStudent();
+      }
+      Person.reserveIds(number);
+      return new Student(number, firstName, lastName, birthDate, Person.Gender.OTHER, indexNumber);
+    }
+  }
+
+  /** A row that could not be parsed. */
+  public static final class RowError {
+    private long lineNumber;
+    private final boolean malformed;
+    private final String reason;
+    private final String line;
+    private final Exception cause;
+
+    RowError(long lineNumber, boolean malformed, String reason, String line, Exception cause) {
+      this.lineNumber = lineNumber;
+      this.malformed = malformed;
+      this.reason = reason;
+      this.line = line;
+      this.cause = cause;
+    }
+
+    public long getLineNumber() { return lineNumber; }
+
+    /** True if the row did not have the expected number of fields. */
+    public boolean isMalformed() { return malformed; }
+
+    public String getReason() { return reason; }
+    public String getLine() { return line; }
+    public Exception getCause() { return cause; }
+
+    /** Message worded like the one produced by the sequential importer. */
+    public String getMessage() {
+      if (malformed) {
+        return String.format("Malformed CSV line %d (%s): %s", lineNumber, reason, line);
+      }
+      return String.format("Error parsing CSV line %d: %s", lineNumber, reason);
+    }
+  }
+
+  /** Rows and errors of one file, each list sorted by line number. */
+  public static final class Result {
+    private final List<Row> rows;
+    private final List<RowError> errors;
+    private final long lineCount;
+
+    Result(List<Row> rows, List<RowError> errors, long lineCount) {
+      this.rows = Collections.unmodifiableList(rows);
+      this.errors = Collections.unmodifiableList(errors);
+      this.lineCount = lineCount;
+    }
+
+    public List<Row> getRows() { return rows; }
+    public List<RowError> getErrors() { return errors; }
+    public long getLineCount() { return lineCount; }
+  }
+
+  // ===== FORK/JOIN =====
+
+  /** Leaf results kept in file order; line numbers are still chunk-local. */
+  private static final class Chunks {
+    final List<Leaf> leaves;
+
+    Chunks(List<Leaf> leaves) {
+      this.leaves = leaves;
+    }
+
+    Chunks concat(Chunks right) {
+      List<Leaf> all = new ArrayList<>(leaves.size() + right.leaves.size());
+      all.addAll(leaves);
+      all.addAll(right.leaves);
+      return new Chunks(all);
+    }
+
+    Result merge() {
+      int rowCount = 0;
+      for (Leaf leaf : leaves) {
+        rowCount += leaf.rows.size();
+      }
+      List<Row> rows = new ArrayList<>(rowCount);
+      List<RowError> errors = new ArrayList<>();
+      Map<String, Long> firstSeen = new HashMap<>(Math.max(16, rowCount * 4 / 3 + 1));
+      long offset = 0;
+
+      for (Leaf leaf : leaves) {
+        Iterator<Row> rowIt = leaf.rows.iterator();
+        Iterator<RowError> errIt = leaf.errors.iterator();
+        Row row = rowIt.hasNext() ? rowIt.next() : null;
+        RowError err = errIt.hasNext() ? errIt.next() : null;
+        // interleave by local line number so errors stay sorted
+        while (row != null || err != null) {
+          if (err == null || (row != null && row.lineNumber < err.lineNumber)) {
+            row.lineNumber += offset;
+            Long previous = firstSeen.putIfAbsent(row.id, row.lineNumber);
+            if (previous == null) {
+              rows.add(row);
+            } else {
+              errors.add(new RowError(row.lineNumber, false,
+                  "Duplicate student id " + row.id + " (first seen on line " + previous + ")",
+                  null, null));
+            }
+            row = rowIt.hasNext() ? rowIt.next() : null;
+          } else {
+            err.lineNumber += offset;
+            errors.add(err);
+            err = errIt.hasNext() ? errIt.next() : null;
+          }
+        }
+        offset += leaf.lineCount;
+      }
+      return new Result(rows, errors, offset);
+    }
+  }
+
+  private static final class Leaf {
+    final List<Row> rows = new ArrayList<>();
+    final List<RowError> errors = new ArrayList<>();
+    long lineCount;
+  }
+
+  private final class ParseTask extends RecursiveTask<Chunks> {
+    private static final long serialVersionUID = 1L;
+
+    private final ByteBuffer data;
+    private final int from;
+    private final int to;
+
+    ParseTask(ByteBuffer data, int from, int to) {
+      this.data = data;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Chunks compute() {
+      if (to - from > chunkBytes) {
+        int split = nextLineStart(from + (to - from) / 2);
+        if (split > from && split < to) {
+          ParseTask left = new ParseTask(data, from, split);
+          left.fork();
+          Chunks right = new ParseTask(data, split, to).compute();
+          return left.join().concat(right);
+        }
+      }
+      return new Chunks(List.of(parseLeaf()));
+    }
+
+    private int nextLineStart(int pos) {
+      while (pos < to && data.get(pos) != '\n') {
+        pos++;
+      }
+      return pos + 1;
+    }
+
+    private Leaf parseLeaf() {
+      Leaf leaf = new Leaf();
+      CsvTokenizer fields = new CsvTokenizer(delimiter);
+      CsvTokenizer gradeList = new CsvTokenizer(",");
+      int lineStart = from;
+      while (lineStart < to) {
+        int lineEnd = lineStart;
+        while (lineEnd < to && data.get(lineEnd) != '\n') {
+          lineEnd++;
+        }
+        int next = lineEnd + 1;
+        if (lineEnd > lineStart && data.get(lineEnd - 1) == '\r') {
+          lineEnd--;
+        }
+        leaf.lineCount++;
+        parseLine(leaf, leaf.lineCount, lineStart, lineEnd, fields, gradeList);
+        lineStart = next;
+      }
+      return leaf;
+    }
+
+    private void parseLine(Leaf leaf, long lineNumber, int start, int end,
+        CsvTokenizer fields, CsvTokenizer gradeList) {
+      int fieldCount;
+      try {
+        if (asciiDelimiter) {
+          fieldCount = fields.tokenize(data, start, end, 0);
+        } else {
+          fieldCount = fields.tokenize(decode(start, end));
+        }
+      } catch (IllegalArgumentException e) {
+        leaf.errors.add(new RowError(lineNumber, true, e.getMessage(), decode(start, end), e));
+        return;
+      }
+      if (fieldCount != FIELDS) {
+        leaf.errors.add(new RowError(lineNumber, true,
+            "expected " + FIELDS + " fields, got " + fieldCount, decode(start, end), null));
+        return;
+      }
+
+      try {
+        LocalDate birthDate = DateCodec.parse(fields.field(4));
+        int gradeCount = gradeList.tokenizeList(fields, 5);
+        double[] grades = new double[gradeCount];
+        int parsed = 0;
+        List<String> invalidGrades = List.of();
+        for (int i = 0; i < gradeCount; i++) {
+          try {
+            grades[parsed] = gradeList.doubleField(i);
+            parsed++;
+          } catch (NumberFormatException e) {
+            if (invalidGrades.isEmpty()) {
+              invalidGrades = new ArrayList<>();
+            }
+            invalidGrades.add(gradeList.field(i));
+          }
+        }
+        if (parsed < gradeCount) {
+          grades = Arrays.copyOf(grades, parsed);
+        }
+        leaf.rows.add(new Row(lineNumber, fields.field(0), fields.field(1),
+            fields.field(2), fields.field(3), birthDate, grades, invalidGrades));
+      } catch (DateTimeParseException | IllegalArgumentException e) {
+        leaf.errors.add(new RowError(lineNumber, false, e.getMessage(), decode(start, end), e));
+      }
+    }
+
+    private String decode(int start, int end) {
+      byte[] line = new byte[end - start];
+      data.get(start, line);
+      return new String(line, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -4,7 +4,6 @@ package i2jp.oop;
 
 import java.time.LocalDate;
 import java.time.Period;
-import java.time.format.DateTimeFormatter;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.LogManager;
@@ -15,8 +14,6 @@ public class Person {
 
     // --- Static fields and constants ---
     private static final AtomicLong COUNTER = new AtomicLong(1L);
-    private static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-    private static final int ID_LEN = 7;
 
     // --- Enum defined inside Person ---
     public enum Gender {
@@ -24,7 +21,9 @@ public class Person {
     }
 
     // --- Instance fields ---
-    private final String id;
+    private final long idValue;
+    // rendered from idValue on first use; racing threads render the same string
+    private String id;
     private String firstName;
     private String lastName;
     private LocalDate birthDate;
@@ -32,19 +31,41 @@ public class Person {
 
     // --- Constructor ---
     public Person(String firstName, String lastName, String birthDmy, Gender gender) {
-        this.id = toBase36Padded(COUNTER.getAndIncrement(), ID_LEN);
-        this.firstName = firstName;
-        this.lastName = lastName;
-        this.birthDate = LocalDate.parse(birthDmy, DMY);
+        this(firstName, lastName, DateCodec.parse(birthDmy), gender);
+    }
+
+    // Used when the birth date has already been parsed, e.g. by a parallel import
+    public Person(String firstName, String lastName, LocalDate birthDate, Gender gender) {
+        this(COUNTER.getAndIncrement(), firstName, lastName, birthDate, gender);
+    }
+
+    // Recreates a stored person under its original id, without drawing a new one
+    Person(long idValue, String firstName, String lastName, LocalDate birthDate, Gender gender) {
+        this.idValue = idValue;
+        this.firstName = NamePool.intern(firstName);
+        this.lastName = NamePool.intern(lastName);
+        this.birthDate = birthDate;
         this.gender = gender;
 
-        log.debug("Created Person id={} name={} {} birth={} gender={}",
-                id, firstName, lastName, birthDmy, gender);
+        if (log.isDebugEnabled()) {
+            log.debug("Created Person id={} name={} {} birth={} gender={}",
+                    getId(), firstName, lastName, birthDate, gender);
+        }
     }
 
     // --- Getters and setters ---
     public String getId() {
-        return id;
+        String s = id;
+        if (s == null) {
+            s = PersonIds.format(idValue);
+            id = s;
+        }
+        return s;
+    }
+
+    /** The id as a number, see {@link PersonIds}. */
+    public long getIdValue() {
+        return idValue;
     }
 
     public String getFirstName() {
@@ -53,8 +74,8 @@ public class Person {
 
     public void setFirstName(String firstName) {
         log.trace("Changing firstName from '{}' to '{}' for id={}",
-                this.firstName, firstName, id);
-        this.firstName = firstName;
+                this.firstName, firstName, getId());
+        this.firstName = NamePool.intern(firstName);
     }
 
     public String getLastName() {
@@ -63,8 +84,8 @@ public class Person {
 
     public void setLastName(String lastName) {
         log.trace("Changing lastName from '{}' to '{}' for id={}",
-                this.lastName, lastName, id);
-        this.lastName = lastName;
+                this.lastName, lastName, getId());
+        this.lastName = NamePool.intern(lastName);
     }
 
     public LocalDate getBirthDate() {
@@ -73,9 +94,9 @@ public class Person {
 
     public void setBirthDate(String birthDmy) {
         LocalDate oldDate = this.birthDate;
-        this.birthDate = LocalDate.parse(birthDmy, DMY);
+        this.birthDate = DateCodec.parse(birthDmy);
         log.trace("Changed birthDate from {} to {} for id={}",
-                oldDate.format(DMY), birthDmy, id);
+                DateCodec.format(oldDate), birthDmy, getId());
     }
 
     public Gender getGender() {
@@ -84,34 +105,32 @@ public class Person {
 
     public void setGender(Gender gender) {
         log.trace("Changing gender from {} to {} for id={}",
-                this.gender, gender, id);
+                this.gender, gender, getId());
         this.gender = gender;
     }
 
     // Helper to get formatted birth date
     public String getBirthDateFormatted() {
-        return birthDate.format(DMY);
+        return DateCodec.format(birthDate);
     }
 
     // --- Utility methods ---
     public int getAgeYears() {
         int age = Period.between(birthDate, LocalDate.now()).getYears();
-        log.trace("Computed age for {} {}: {} years", firstName, lastName, age);
+        if (log.isTraceEnabled()) {
+            log.trace("Computed age for {} {}: {} years", firstName, lastName, age);
+        }
         return age;
     }
 
     @Override
     public String toString() {
-        return firstName + " " + lastName + " (" + birthDate.format(DMY) + ", " + gender + ")";
+        return firstName + " " + lastName + " (" + DateCodec.format(birthDate) + ", " + gender + ")";
     }
 
-    // --- Helper for ID formatting ---
-    private static String toBase36Padded(long n, int len) {
-        String s = Long.toString(n, 36).toUpperCase();
-        int pad = len - s.length();
-        String result = (pad > 0 ? "0".repeat(pad) : "") + s;
-        log.trace("Generated base36 id={} from n={}", result, n);
-        return result;
+    // Keeps ids drawn from now on above a restored one, so a stored and a new person never share an id
+    static void reserveIds(long idValue) {
+        COUNTER.accumulateAndGet(idValue + 1, Math::max);
     }
 
     // Reset counter for testing purposes
@@ -0,0 +1,74 @@
+// File: src/i2jp/oop/PersonIds.java
+// Fixed-width base-36 person ids and their packed numeric form
+package i2jp.oop;
+
+/**
+ * Person ids are the person's sequence number written as seven upper-case
+ * base-36 digits, zero-padded: 1 is {@code 0000001}, 36 is {@code 0000010}.
+ * <p>
+ * A {@link Person} keeps only the number and renders the string the first
+ * time it is asked for, straight into a seven-character buffer. Callers that
+ * want to key on the number can {@link #parse} an id back into it.
+ */
+public final class PersonIds {
+  /** Number of characters in an id. */
+  public static final int LENGTH = 7;
+  /** One past the largest number that fits in {@link #LENGTH} digits. */
+  public static final long LIMIT = 78_364_164_096L; // 36^7
+
+  private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+  private PersonIds() {
+  }
+
+  /**
+   * The id of sequence number {@code value}.
+   *
+   * @throws IllegalArgumentException if the number does not fit in an id
+   */
+  public static String format(long value) {
+    if (value < 0 || value >= LIMIT) {
+      throw new IllegalArgumentException("Person number out of range: " + value);
+    }
+    char[] buf = new char[LENGTH];
+    for (int i = LENGTH - 1; i >= 0; i--) {
+      buf[i] = DIGITS[(int) (value % 36)];
+      value /= 36;
+    }
+    return new String(buf);
+  }
+
+  /**
+   * The sequence number of an id; lower-case digits are accepted.
+   *
+   * @throws IllegalArgumentException if {@code id} is not seven base-36 digits
+   */
+  public static long parse(CharSequence id) {
+    if (id.length() != LENGTH) {
+      throw new IllegalArgumentException("Person id must have " + LENGTH + " characters: " + id);
+    }
+    long value = 0;
+    for (int i = 0; i < LENGTH; i++) {
+      int digit = Character.digit(id.charAt(i), 36);
+      if (digit < 0) {
+        throw new IllegalArgumentException("Invalid character in person id: " + id);
+      }
+      value = value * 36 + digit;
+    }
+    return value;
+  }
+
+  /**
+   * The number of {@code id} if it is an id exactly as {@link #format} writes
+   * it, otherwise -1. Unlike {@link #parse} this rejects lower case.
+   */
+  public static long parseExact(CharSequence id) {
+    long value;
+    try {
+      value = parse(id);
+    } catch (IllegalArgumentException e) {
+      return -1;
+    }
+    return format(value).contentEquals(id) ? value : -1;
+  }
+}
@@ -2,7 +2,9 @@
 // Student class with Log4j 2 logging integration
 package i2jp.oop;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -11,38 +13,102 @@ public class Student extends Person {
   private static final Logger log = LogManager.getLogger(Student.class);
   
   private final String indexNumber;
-  private final List<Double> grades = new ArrayList<>();
-  private static final Set<Double> ALLOWED = Set.of(2.0, 3.0, 3.5, 4.0, 4.5, 5.0);
+  private final GradeBook grades = new GradeBook();
+  // set by the group the student belongs to, which keeps running grade totals
+  private volatile GradeListener gradeListener;
+  // held while a grade is added and while a group starts or stops listening, so the group's
+  // totals count every grade exactly once
+  private final Object gradeLock = new Object();
+
+  /** Told about every grade added to a student, on the thread that added it. */
+  interface GradeListener {
+    void gradeAdded(Student student, int code);
+  }
 
   public Student(String firstName, String lastName, String birthDmy, Gender gender, String indexNumber) {
     super(firstName, lastName, birthDmy, gender);
     this.indexNumber = indexNumber;
-    log.info("New Student created: index={} personId={}", indexNumber, getId());
+    if (log.isDebugEnabled()) {
+      log.debug("New Student created: index={} personId={}", indexNumber, getId());
+    }
+  }
+
+  public Student(String firstName, String lastName, LocalDate birthDate, Gender gender, String indexNumber) {
+    super(firstName, lastName, birthDate, gender);
+    this.indexNumber = indexNumber;
+    if (log.isDebugEnabled()) {
+      log.debug("New Student created: index={} personId={}", indexNumber, getId());
+    }
+  }
+
+  // Recreates a stored student under its original id
+  Student(long idValue, String firstName, String lastName, LocalDate birthDate, Gender gender,
+      String indexNumber) {
+    super(idValue, firstName, lastName, birthDate, gender);
+    this.indexNumber = indexNumber;
   }
 
   public String getIndexNumber() { return indexNumber; }
 
   public void addGrade(double g) {
-    if (!ALLOWED.contains(g)) {
+    if (GradeBook.codeOf(g) < 0) {
       log.error("Attempt to add invalid grade={} for student index={}", g, indexNumber);
       throw new IllegalArgumentException("Grade not allowed: " + g);
     }
-    grades.add(g);
-    log.debug("Added grade={} to student index={} (now {} grades)", 
-        g, indexNumber, grades.size());
+    synchronized (gradeLock) {
+      grades.add(g);
+      GradeListener listener = gradeListener;
+      if (listener != null) {
+        listener.gradeAdded(this, GradeBook.codeOf(g));
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Added grade={} to student index={} (now {} grades)",
+          g, indexNumber, grades.size());
+    }
   }
 
   public OptionalDouble average() {
-    OptionalDouble avg = grades.stream()
-        .mapToDouble(Double::doubleValue)
-        .average();
-    log.trace("Computed average for index={}: {}", 
-        indexNumber, avg.isPresent() ? String.format("%.2f", avg.getAsDouble()) : "no grades");
+    OptionalDouble avg = grades.average();
+    if (log.isTraceEnabled()) {
+      log.trace("Computed average for index={}: {}",
+          indexNumber, avg.isPresent() ? String.format("%.2f", avg.getAsDouble()) : "no grades");
+    }
     return avg;
   }
 
   public List<Double> getGrades() {
-    return Collections.unmodifiableList(grades);
+    return grades.asList();
+  }
+
+  /**
+   * Installs the listener and hands the grades given so far to
+   * {@code gradesSoFar}, with no grade added in between: each grade reaches
+   * the listener's owner exactly once, either there or as an event.
+   */
+  void setGradeListener(GradeListener listener, Consumer<GradeBook> gradesSoFar) {
+    synchronized (gradeLock) {
+      gradeListener = listener;
+      gradesSoFar.accept(grades);
+    }
+  }
+
+  /**
+   * Clears the listener if it is still {@code listener} and hands the grades
+   * given so far to {@code gradesSoFar}, with no grade added in between.
+   */
+  void clearGradeListener(GradeListener listener, Consumer<GradeBook> gradesSoFar) {
+    synchronized (gradeLock) {
+      if (gradeListener == listener) {
+        gradeListener = null;
+      }
+      gradesSoFar.accept(grades);
+    }
+  }
+
+  /** Primitive grade storage, for callers that want to avoid boxing. */
+  public GradeBook getGradeBook() {
+    return grades;
   }
 
   @Override
@@ -0,0 +1,75 @@
+// File: src/i2jp/oop/StudentRepository.java
+// Storage of the registered students, keyed by person id
+package i2jp.oop;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The registered students, keyed by {@link Person#getId() person id}. The
+ * console app reads and writes students only through this interface, so the
+ * storage behind it can be chosen in the configuration.
+ * <p>
+ * Repositories kept in a file write their changes out on {@link #flush()} and
+ * {@link #close()}; for the others both do nothing.
+ */
+public interface StudentRepository extends Iterable<Student>, Closeable {
+  /** Stores {@code s}, replacing any student with the same id. */
+  void put(Student s);
+
+  /** Stores every student, as {@link #put} would one by one. */
+  default void putAll(Collection<? extends Student> students) {
+    for (Student s : students) {
+      put(s);
+    }
+  }
+
+  /** The student with this id, or null if there is none. */
+  Student get(String id);
+
+  /**
+   * The students with these ids, keyed by id in the order asked for; ids
+   * without a student are left out.
+   */
+  default Map<String, Student> findByIds(Collection<String> ids) {
+    Map<String, Student> found = new LinkedHashMap<>();
+    for (String id : ids) {
+      Student s = get(id);
+      if (s != null) {
+        found.put(id, s);
+      }
+    }
+    return found;
+  }
+
+  int size();
+
+  default boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /** Every student, in no particular order. */
+  @Override
+  Iterator<Student> iterator();
+
+  /** Every student, in the order of {@link #iterator()}. */
+  default Stream<Student> streamAll() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /** Writes changes not yet in the backing file. */
+  default void flush() throws IOException {
+  }
+
+  /** Flushes, then releases the backing file. */
+  @Override
+  default void close() throws IOException {
+    flush();
+  }
+}
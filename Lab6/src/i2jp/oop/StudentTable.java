@@ -0,0 +1,226 @@
+// File: src/i2jp/oop/StudentTable.java
+// Column-oriented copy of the students for whole-registry scans
+package i2jp.oop;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * The students as parallel primitive columns, one row per student, for scans
+ * over the whole registry such as grade statistics.
+ * <p>
+ * Ids are kept as {@link Person#getIdValue() numbers} and birth dates as epoch
+ * days. First and last names are codes into a dictionary of distinct names.
+ * The grade codes of all students sit back to back in one {@code byte[]}, and
+ * row {@code r} owns the range from {@code gradeStart[r]} to
+ * {@code gradeStart[r + 1]}, so a scan over every grade is one pass over one
+ * array instead of a walk over a million objects.
+ * <p>
+ * Rows are appended as students are added and hold the student as it was then;
+ * grades given later are not seen until the table is rebuilt with
+ * {@link #of(Collection)}. An instance is not thread-safe.
+ */
+public final class StudentTable {
+  private static final int INITIAL_ROWS = 16;
+  private static final Person.Gender[] GENDERS = Person.Gender.values();
+
+  private int size;
+  private long[] ids = new long[INITIAL_ROWS];
+  private int[] birthDays = new int[INITIAL_ROWS];
+  private byte[] genders = new byte[INITIAL_ROWS];
+  private int[] firstNames = new int[INITIAL_ROWS];
+  private int[] lastNames = new int[INITIAL_ROWS];
+  private String[] indexNumbers = new String[INITIAL_ROWS];
+  private int[] gradeStart = new int[INITIAL_ROWS + 1];
+  private byte[] grades = new byte[INITIAL_ROWS * 4];
+
+  private final List<String> names = new ArrayList<>();
+  private final Map<String, Integer> nameCodes = new HashMap<>();
+
+  /** A table of {@code students}, in iteration order. */
+  public static StudentTable of(Collection<Student> students) {
+    StudentTable table = new StudentTable();
+    table.ensureRows(students.size());
+    for (Student s : students) {
+      table.add(s);
+    }
+    return table;
+  }
+
+  /** Appends a row for {@code s} and returns its number. */
+  public int add(Student s) {
+    ensureRows(size + 1);
+    GradeBook book = s.getGradeBook();
+    int from = gradeStart[size];
+    int to = from + book.size();
+    if (to > grades.length) {
+      grades = Arrays.copyOf(grades, Math.max(to, grades.length * 2));
+    }
+    for (int i = 0; i < book.size(); i++) {
+      grades[from + i] = (byte) book.code(i);
+    }
+    int row = size++;
+    ids[row] = s.getIdValue();
+    birthDays[row] = (int) s.getBirthDate().toEpochDay();
+    genders[row] = (byte) s.getGender().ordinal();
+    firstNames[row] = nameCode(s.getFirstName());
+    lastNames[row] = nameCode(s.getLastName());
+    indexNumbers[row] = s.getIndexNumber();
+    gradeStart[row + 1] = to;
+    return row;
+  }
+
+  private int nameCode(String name) {
+    Integer code = nameCodes.get(name);
+    if (code == null) {
+      code = names.size();
+      names.add(name);
+      nameCodes.put(name, code);
+    }
+    return code;
+  }
+
+  private void ensureRows(int rows) {
+    if (rows <= ids.length) {
+      return;
+    }
+    int capacity = Math.max(rows, ids.length * 2);
+    ids = Arrays.copyOf(ids, capacity);
+    birthDays = Arrays.copyOf(birthDays, capacity);
+    genders = Arrays.copyOf(genders, capacity);
+    firstNames = Arrays.copyOf(firstNames, capacity);
+    lastNames = Arrays.copyOf(lastNames, capacity);
+    indexNumbers = Arrays.copyOf(indexNumbers, capacity);
+    gradeStart = Arrays.copyOf(gradeStart, capacity + 1);
+  }
+
+  // ===== ROWS =====
+
+  public int size() {
+    return size;
+  }
+
+  public long id(int row) {
+    return ids[check(row)];
+  }
+
+  public int birthEpochDay(int row) {
+    return birthDays[check(row)];
+  }
+
+  public LocalDate birthDate(int row) {
+    return LocalDate.ofEpochDay(birthEpochDay(row));
+  }
+
+  public Person.Gender gender(int row) {
+    return GENDERS[genders[check(row)]];
+  }
+
+  public String firstName(int row) {
+    return names.get(firstNames[check(row)]);
+  }
+
+  public String lastName(int row) {
+    return names.get(lastNames[check(row)]);
+  }
+
+  public String indexNumber(int row) {
+    return indexNumbers[check(row)];
+  }
+
+  public int gradeCount(int row) {
+    check(row);
+    return gradeStart[row + 1] - gradeStart[row];
+  }
+
+  /** Grade {@code i} of a row as a {@link GradeBook} code. */
+  public int gradeCode(int row, int i) {
+    if (i < 0 || i >= gradeCount(row)) {
+      throw new IndexOutOfBoundsException("Grade index " + i + " out of bounds for row " + row);
+    }
+    return grades[gradeStart[row] + i];
+  }
+
+  /** Number of distinct first and last names. */
+  public int nameCount() {
+    return names.size();
+  }
+
+  private int check(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+    }
+    return row;
+  }
+
+  // ===== SCANS =====
+
+  /** Total number of grades. */
+  public long gradeCount() {
+    return gradeStart[size];
+  }
+
+  /** Number of grades for each {@link GradeBook} code. */
+  public long[] gradeHistogram() {
+    long[] histogram = new long[GradeBook.scaleSize()];
+    int end = gradeStart[size];
+    for (int i = 0; i < end; i++) {
+      histogram[grades[i]]++;
+    }
+    return histogram;
+  }
+
+  /** Mean of all grades. */
+  public OptionalDouble meanGrade() {
+    long[] histogram = gradeHistogram();
+    long count = 0;
+    double sum = 0;
+    for (int code = 0; code < histogram.length; code++) {
+      count += histogram[code];
+      sum += histogram[code] * GradeBook.valueOf(code);
+    }
+    return count == 0 ? OptionalDouble.empty() : OptionalDouble.of(sum / count);
+  }
+
+  /** Rows with at least one grade. */
+  public int gradedCount() {
+    int graded = 0;
+    for (int row = 0; row < size; row++) {
+      if (gradeStart[row + 1] > gradeStart[row]) {
+        graded++;
+      }
+    }
+    return graded;
+  }
+
+  /** Graded rows whose average grade is below {@code threshold}. */
+  public int countAverageBelow(double threshold) {
+    // compare sums in half points: sum < threshold * count, without dividing
+    long[] halfPoints = new long[GradeBook.scaleSize()];
+    for (int code = 0; code < halfPoints.length; code++) {
+      halfPoints[code] = Math.round(GradeBook.valueOf(code) * 2);
+    }
+    int below = 0;
+    for (int row = 0; row < size; row++) {
+      int from = gradeStart[row];
+      int to = gradeStart[row + 1];
+      if (from == to) {
+        continue;
+      }
+      long sum = 0;
+      for (int i = from; i < to; i++) {
+        sum += halfPoints[grades[i]];
+      }
+      if (sum < threshold * 2 * (to - from)) {
+        below++;
+      }
+    }
+    return below;
+  }
+}
@@ -0,0 +1,99 @@
+// File: test/i2jp/oop/GroupTest.java
+// Running grade totals of Group under membership changes and concurrent grading
+package i2jp.oop;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class GroupTest {
+  private static final double[] SCALE = { 2.0, 3.0, 3.5, 4.0, 4.5, 5.0 };
+
+  @Test
+  void totalsFollowMembersAndTheirGrades() {
+    Group group = new Group("totals", "");
+    Student anna = student("A1");
+    anna.addGrade(4.0);
+    Student jan = student("A2");
+
+    assertTrue(group.addStudent(anna));
+    assertTrue(group.addStudent(jan));
+    jan.addGrade(5.0);
+    jan.addGrade(3.0);
+    assertEquals(3, group.getGradeCount());
+    assertEquals(4.0, group.average().getAsDouble(), 1e-9);
+
+    assertTrue(group.removeStudent(jan));
+    jan.addGrade(2.0);
+    assertEquals(1, group.getGradeCount());
+    assertArrayEquals(new long[] { 0, 0, 0, 1, 0, 0 }, group.getGradeHistogram());
+
+    assertTrue(group.removeStudent(anna));
+    assertFalse(group.average().isPresent());
+  }
+
+  @Test
+  void totalsStayExactWhileGradesArriveDuringMembershipChanges() throws Exception {
+    Group group = new Group("race", "");
+    List<Student> students = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      students.add(student("R" + i));
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(students.size() + 1);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> tasks = new ArrayList<>();
+    try {
+      for (Student s : students) {
+        tasks.add(pool.submit(() -> {
+          start.await();
+          for (int k = 0; k < 20_000; k++) {
+            s.addGrade(SCALE[k % SCALE.length]);
+          }
+          return null;
+        }));
+      }
+      tasks.add(pool.submit(() -> {
+        start.await();
+        for (int k = 0; k < 20_000; k++) {
+          Student s = students.get(k % students.size());
+          group.addStudent(s);
+          group.removeStudent(s);
+        }
+        return null;
+      }));
+      start.countDown();
+      for (Future<?> task : tasks) {
+        task.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    // nobody is left, so every grade counted on the way in was taken out again
+    assertEquals(0, group.getGradeCount());
+    assertArrayEquals(new long[SCALE.length], group.getGradeHistogram());
+
+    long expected = 0;
+    for (Student s : students) {
+      group.addStudent(s);
+      expected += s.getGradeBook().size();
+    }
+    assertEquals(expected, group.getGradeCount());
+  }
+
+  private static Student student(String index) {
+    return new Student("Anna", "Nowak", LocalDate.of(2001, 3, 7), Person.Gender.OTHER, index);
+  }
+}
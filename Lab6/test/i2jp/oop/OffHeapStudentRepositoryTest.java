@@ -0,0 +1,121 @@
+// File: test/i2jp/oop/OffHeapStudentRepositoryTest.java
+// Records, arena reuse and compaction of OffHeapStudentRepository
+package i2jp.oop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapStudentRepositoryTest {
+  private final OffHeapStudentRepository repo = new OffHeapStudentRepository();
+
+  @Test
+  void returnsTheStoredStudentWhileItIsReachable() {
+    Student anna = new Student(PersonIds.parse("00AB12C"), "Anna", "Nowak", LocalDate.of(2001, 3, 7),
+        Person.Gender.OTHER, "A1");
+    repo.put(anna);
+
+    assertSame(anna, repo.get("00AB12C"));
+    assertNull(repo.get("00ab12c"));
+    assertNull(repo.get("nope"));
+    assertEquals(1, repo.size());
+    assertEquals(List.of(anna), repo.streamAll().toList());
+  }
+
+  @Test
+  void readsStudentsBackFromTheirRecords() {
+    String id = putAndDrop();
+    Student s = repo.get(id);
+
+    assertEquals("Żaneta", s.getFirstName());
+    assertEquals("Nowak-Łódzka", s.getLastName());
+    assertEquals(LocalDate.of(1999, 12, 31), s.getBirthDate());
+    assertEquals(Person.Gender.FEMALE, s.getGender());
+    assertEquals("B7", s.getIndexNumber());
+    assertEquals(List.of(3.5, 5.0, 2.0), s.getGrades());
+    assertSame(s, repo.get(id));
+  }
+
+  @Test
+  void rePutRewritesEntriesThatStillFitInPlace() {
+    Student anna = student("Annabelle", "A1");
+    anna.addGrade(4.0);
+    repo.put(anna);
+    long bytes = repo.offHeapBytes();
+
+    anna.setFirstName("Anna");
+    for (int i = 0; i < 6; i++) {
+      anna.addGrade(5.0);
+    }
+    repo.put(anna);
+
+    assertEquals(bytes, repo.offHeapBytes());
+    assertSame(anna, repo.get(anna.getId()));
+    assertEquals(1, repo.size());
+  }
+
+  @Test
+  void compactsTheArenaWhenMostOfItIsGarbage() {
+    List<Student> students = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      Student s = student("S", "C" + i);
+      students.add(s);
+      repo.put(s);
+    }
+    // every round outgrows the last names' entries, leaving all of them behind as garbage
+    for (int round = 1; round <= 120; round++) {
+      String last = "x".repeat(4 * round);
+      for (Student s : students) {
+        s.setLastName(last);
+        repo.put(s);
+      }
+    }
+
+    // about 29 MB went into the arena, but under 0.5 MB of it is live
+    assertTrue(repo.offHeapBytes() < 20 << 20, "off-heap bytes " + repo.offHeapBytes());
+    for (Student s : students) {
+      assertSame(s, repo.get(s.getId()));
+    }
+    String id = students.get(42).getId();
+    WeakReference<Student> ref = new WeakReference<>(students.get(42));
+    students.clear();
+    assumeTrue(collect(ref), "the student was not collected");
+    Student read = repo.get(id);
+    assertEquals("x".repeat(480), read.getLastName());
+    assertEquals("C42", read.getIndexNumber());
+  }
+
+  // Puts a student that nothing else refers to, so a later get has to decode its record
+  private String putAndDrop() {
+    Student s = new Student("Żaneta", "Nowak-Łódzka", LocalDate.of(1999, 12, 31), Person.Gender.FEMALE, "B7");
+    s.addGrade(3.5);
+    s.addGrade(5.0);
+    s.addGrade(2.0);
+    repo.put(s);
+    WeakReference<Student> ref = new WeakReference<>(s);
+    String id = s.getId();
+    s = null;
+    assumeTrue(collect(ref), "the student was not collected");
+    return id;
+  }
+
+  private static boolean collect(WeakReference<?> ref) {
+    for (int i = 0; i < 50 && ref.get() != null; i++) {
+      System.gc();
+    }
+    return ref.get() == null;
+  }
+
+  private static Student student(String first, String index) {
+    return new Student(first, "Nowak", LocalDate.of(2001, 3, 7), Person.Gender.OTHER, index);
+  }
+}
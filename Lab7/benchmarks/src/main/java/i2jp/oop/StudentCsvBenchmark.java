@@ -0,0 +1,81 @@
+package i2jp.oop;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Student CSV parsing and formatting, per row and for whole files of 1k to 1M
+ * rows. Lives in {@code i2jp.oop} because the domain classes are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StudentCsvBenchmark {
+    private static final String[] FIRST = { "Anna", "Piotr", "Julia", "Jan", "Maria", "Tomasz" };
+    private static final String[] LAST = { "Nowak", "Kowalska", "Mazur", "Wójcik", "Zielińska" };
+    private static final String[] GRADES = { "[5.0,4.5,4.0]", "[4.0,4.0,3.5]", "[3.5,3.0]", "[]" };
+
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    private String[] lines;
+    private Student[] students;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        lines = new String[size];
+        for (int i = 0; i < size; i++) {
+            lines[i] = String.format("%07d;S%06d;%s;%s;%02d.%02d.%d;%s",
+                    i + 1, i, FIRST[i % FIRST.length], LAST[i % LAST.length],
+                    1 + i % 28, 1 + i % 12, 1995 + i % 10, GRADES[i % GRADES.length]);
+        }
+        students = new Student[size];
+        for (int i = 0; i < size; i++) {
+            students[i] = Student.fromCsvLine(lines[i]);
+        }
+        file = File.createTempFile("students-" + size + "-", ".csv");
+        file.deleteOnExit();
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                out.write(line);
+                out.newLine();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public void fromCsvLine(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(Student.fromCsvLine(line));
+        }
+    }
+
+    @Benchmark
+    public void toCsvLine(Blackhole bh) {
+        for (Student s : students) {
+            bh.consume(s.toCsvLine());
+        }
+    }
+
+    /** The whole-file path used by StudentRegistry when loading students.csv. */
+    @Benchmark
+    public void readMappedFile(Blackhole bh) throws IOException {
+        new MappedStudentReader().read(file, bh::consume);
+    }
+}
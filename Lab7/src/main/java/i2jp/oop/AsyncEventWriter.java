@@ -0,0 +1,90 @@
+package i2jp.oop;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event sink that writes one line per event from a background thread.
+ * <p>
+ * The calling thread only formats the line and offers it to a bounded queue;
+ * the writer thread takes whatever has queued up, writes it through one buffer
+ * and flushes once per batch, so a burst of events costs one console write per
+ * batch instead of one synchronized {@code println} each. If the queue is full
+ * the event is dropped rather than slowing the caller down, and the number
+ * dropped is written in its place.
+ */
+final class AsyncEventWriter implements DomainEvents.Sink {
+    private static final int QUEUE_CAPACITY = 16 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Writer out;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    AsyncEventWriter(OutputStream stream) {
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.writer = new Thread(this::drain, "domain-events");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void studentCreated(Student s) {
+        String line = "Created student: " + s.getFirstName() + " " + s.getLastName() + ", DOB: "
+                + s.getBirthDate() + ", Index: " + s.getIndexNumber() + ", Grades: "
+                + s.getGradeBook().appendTo(new StringBuilder());
+        if (!queue.offer(line)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>();
+        try {
+            while (!closed || !queue.isEmpty()) {
+                String first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                queue.drainTo(batch);
+                for (String line : batch) {
+                    out.write(line);
+                    out.write('\n');
+                }
+                batch.clear();
+                long lost = dropped.getAndSet(0);
+                if (lost > 0) {
+                    out.write("(" + lost + " events dropped)\n");
+                }
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Could not write domain events: " + e.getMessage());
+        }
+    }
+
+    /** Lets the writer thread finish what is queued, waiting at most five seconds. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package i2jp.oop;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Splits a single CSV record into fields without creating substrings.
+ * <p>
+ * After {@link #tokenize(CharSequence)} the tokenizer holds the start and end
+ * offsets of every field in the scanned text; a {@code String} is only created
+ * when a caller asks for one with {@link #field(int)}. Records can be scanned
+ * from a {@link CharSequence} or straight from UTF-8 bytes in a
+ * {@link ByteBuffer}.
+ * <p>
+ * Fields may be quoted as described in RFC 4180: a quoted field can contain the
+ * delimiter, and a doubled quote inside it stands for one quote character.
+ * <p>
+ * An instance reuses its internal arrays between calls and is not thread-safe.
+ */
+final class CsvTokenizer {
+    private static final char QUOTE = '"';
+    private static final byte QUOTED = 1;
+    private static final byte ESCAPED = 2;
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+
+    private final String delimiter;
+    private final char delimiterStart;
+    private final boolean asciiDelimiter;
+
+    private CharSequence text;
+    private ByteBuffer bytes;
+    private int origin;
+
+    private int count;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private byte[] flags = new byte[8];
+
+    private byte[] byteScratch = new byte[64];
+    private final StringBuilder charScratch = new StringBuilder();
+
+    public CsvTokenizer(String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter cannot be empty");
+        }
+        if (delimiter.indexOf(QUOTE) >= 0) {
+            throw new IllegalArgumentException("Delimiter cannot contain a quote character");
+        }
+        this.delimiter = delimiter;
+        this.delimiterStart = delimiter.charAt(0);
+        this.asciiDelimiter = delimiter.chars().allMatch(c -> c < 0x80);
+    }
+
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    // ===== SCANNING =====
+
+    /** Scans the whole line; returns the number of fields found. */
+    public int tokenize(CharSequence line) {
+        return tokenize(line, 0, line.length(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Scans the whole line into at most {@code maxFields} fields; the last one
+     * then takes the rest of the line, like {@link String#split(String, int)}.
+     * It is only unquoted if its closing quote ends the line.
+     */
+    public int tokenize(CharSequence line, int maxFields) {
+        return tokenize(line, 0, line.length(), maxFields);
+    }
+
+    /** Scans characters {@code from} (inclusive) to {@code to} (exclusive). */
+    public int tokenize(CharSequence line, int from, int to, int maxFields) {
+        Objects.checkFromToIndex(from, to, line.length());
+        bind(line, null);
+        return scan(from, to, maxFields);
+    }
+
+    /**
+     * Scans UTF-8 encoded bytes {@code from} (inclusive) to {@code to}
+     * (exclusive) at absolute positions of the buffer; the buffer position is
+     * left untouched. The delimiter must be plain ASCII for this mode.
+     */
+    public int tokenize(ByteBuffer buffer, int from, int to, int maxFields) {
+        if (!asciiDelimiter) {
+            throw new IllegalStateException("Byte scanning requires an ASCII delimiter");
+        }
+        Objects.checkFromToIndex(from, to, buffer.limit());
+        bind(null, buffer);
+        return scan(from, to, maxFields);
+    }
+
+    /**
+     * Scans the bracketed list held in field {@code i} of {@code outer}, such as
+     * {@code [5.0,4.5]}, reading from the same text as {@code outer}. Whitespace
+     * and the enclosing brackets are skipped, so {@code []} yields no fields.
+     */
+    public int tokenizeList(CsvTokenizer outer, int i) {
+        outer.checkIndex(i);
+        int from;
+        int to;
+        if ((outer.flags[i] & ESCAPED) != 0) {
+            String value = outer.field(i);
+            bind(value, null);
+            from = 0;
+            to = value.length();
+        } else {
+            bind(outer.text, outer.bytes);
+            from = outer.starts[i];
+            to = outer.ends[i];
+        }
+        return scanList(from, to);
+    }
+
+    /** Scans a bracketed list such as {@code [5.0,4.5]} held in {@code value}. */
+    public int tokenizeList(CharSequence value) {
+        bind(value, null);
+        return scanList(0, value.length());
+    }
+
+    private int scanList(int from, int to) {
+        from = skipWhitespace(from, to);
+        to = trimWhitespace(from, to);
+        if (from < to && charAt(from) == '[') {
+            from++;
+        }
+        if (from < to && charAt(to - 1) == ']') {
+            to--;
+        }
+        from = skipWhitespace(from, to);
+        to = trimWhitespace(from, to);
+        if (from >= to) {
+            count = 0;
+            return 0;
+        }
+        return scan(from, to, Integer.MAX_VALUE);
+    }
+
+    private void bind(CharSequence text, ByteBuffer bytes) {
+        this.text = text;
+        this.bytes = bytes;
+    }
+
+    private int scan(int from, int to, int maxFields) {
+        origin = from;
+        count = 0;
+        int limit = maxFields <= 0 ? Integer.MAX_VALUE : maxFields;
+        int pos = from;
+        while (true) {
+            boolean quoted = pos < to && charAt(pos) == QUOTE;
+            if (count == limit - 1 && !quoted) {
+                addField(pos, to, (byte) 0);
+                return count;
+            }
+            if (quoted) {
+                int open = pos;
+                pos = scanQuoted(pos, to);
+                if (count == limit && pos < to) {
+                    // the last field takes the rest of the line after all, quotes included
+                    count--;
+                    addField(open, to, (byte) 0);
+                    return count;
+                }
+            } else {
+                int end = pos;
+                while (end < to && !isDelimiterAt(end, to)) {
+                    end++;
+                }
+                addField(pos, end, (byte) 0);
+                pos = end;
+            }
+            if (pos >= to) {
+                return count;
+            }
+            pos += delimiter.length();
+        }
+    }
+
+    private int scanQuoted(int open, int to) {
+        byte flag = QUOTED;
+        int i = open + 1;
+        while (i < to) {
+            if (charAt(i) == QUOTE) {
+                if (i + 1 < to && charAt(i + 1) == QUOTE) {
+                    flag |= ESCAPED;
+                    i += 2;
+                    continue;
+                }
+                addField(open + 1, i, flag);
+                int next = i + 1;
+                if (next < to && !isDelimiterAt(next, to)) {
+                    throw new IllegalArgumentException(
+                            "Unexpected character after closing quote at column " + (next - origin + 1));
+                }
+                return next;
+            }
+            i++;
+        }
+        throw new IllegalArgumentException(
+                "Unterminated quoted field starting at column " + (open - origin + 1));
+    }
+
+    private boolean isDelimiterAt(int i, int to) {
+        if (charAt(i) != delimiterStart) {
+            return false;
+        }
+        int len = delimiter.length();
+        if (len == 1) {
+            return true;
+        }
+        if (i + len > to) {
+            return false;
+        }
+        for (int k = 1; k < len; k++) {
+            if (charAt(i + k) != delimiter.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char charAt(int i) {
+        return text != null ? text.charAt(i) : (char) (bytes.get(i) & 0xFF);
+    }
+
+    private void addField(int start, int end, byte flag) {
+        if (count == starts.length) {
+            int size = count * 2;
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            flags = Arrays.copyOf(flags, size);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        flags[count] = flag;
+        count++;
+    }
+
+    private int skipWhitespace(int from, int to) {
+        while (from < to && charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimWhitespace(int from, int to) {
+        while (to > from && charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    // ===== FIELD ACCESS =====
+
+    public int fieldCount() {
+        return count;
+    }
+
+    /** Offset of the first character of field {@code i}, after any opening quote. */
+    public int start(int i) {
+        checkIndex(i);
+        return starts[i];
+    }
+
+    /** Offset just past the last character of field {@code i}, before any closing quote. */
+    public int end(int i) {
+        checkIndex(i);
+        return ends[i];
+    }
+
+    /** Like {@link #start(int)}, but past any leading whitespace of an unquoted field. */
+    public int trimmedStart(int i) {
+        checkIndex(i);
+        return (flags[i] & QUOTED) != 0 ? starts[i] : skipWhitespace(starts[i], ends[i]);
+    }
+
+    /** Like {@link #end(int)}, but before any trailing whitespace of an unquoted field. */
+    public int trimmedEnd(int i) {
+        checkIndex(i);
+        return (flags[i] & QUOTED) != 0 ? ends[i] : trimWhitespace(trimmedStart(i), ends[i]);
+    }
+
+    public boolean isQuoted(int i) {
+        checkIndex(i);
+        return (flags[i] & QUOTED) != 0;
+    }
+
+    /** Returns true if field {@code i} has no characters once whitespace is trimmed. */
+    public boolean isBlank(int i) {
+        checkIndex(i);
+        if ((flags[i] & QUOTED) != 0) {
+            return starts[i] == ends[i];
+        }
+        return skipWhitespace(starts[i], ends[i]) == ends[i];
+    }
+
+    /** Materializes field {@code i}, undoing any quote escaping. */
+    public String field(int i) {
+        checkIndex(i);
+        return materialize(starts[i], ends[i], (flags[i] & ESCAPED) != 0);
+    }
+
+    /** Like {@link #field(int)}, but trims surrounding whitespace of unquoted fields. */
+    public String trimmedField(int i) {
+        checkIndex(i);
+        if ((flags[i] & QUOTED) != 0) {
+            return field(i);
+        }
+        int from = skipWhitespace(starts[i], ends[i]);
+        return materialize(from, trimWhitespace(from, ends[i]), false);
+    }
+
+    /**
+     * Parses field {@code i} as a double without materializing it when it is a
+     * plain decimal such as {@code 4.5}; anything else is handed to
+     * {@link Double#parseDouble(String)}, which also supplies the error.
+     *
+     * @throws NumberFormatException if the field is not a valid number
+     */
+    public double doubleField(int i) {
+        checkIndex(i);
+        int from = skipWhitespace(starts[i], ends[i]);
+        int to = trimWhitespace(from, ends[i]);
+        int k = from;
+        boolean negative = false;
+        if (k < to && (charAt(k) == '-' || charAt(k) == '+')) {
+            negative = charAt(k) == '-';
+            k++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; k < to; k++) {
+            char c = charAt(k);
+            if (c >= '0' && c <= '9') {
+                if (++digits >= POW10.length) {
+                    return Double.parseDouble(trimmedField(i));
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                return Double.parseDouble(trimmedField(i));
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(trimmedField(i));
+        }
+        double value = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private String materialize(int from, int to, boolean escaped) {
+        if (text != null) {
+            if (!escaped) {
+                return text.subSequence(from, to).toString();
+            }
+            charScratch.setLength(0);
+            for (int k = from; k < to; k++) {
+                char c = text.charAt(k);
+                charScratch.append(c);
+                if (c == QUOTE) {
+                    k++;
+                }
+            }
+            return charScratch.toString();
+        }
+        if (byteScratch.length < to - from) {
+            byteScratch = new byte[Math.max(to - from, byteScratch.length * 2)];
+        }
+        int n = 0;
+        for (int k = from; k < to; k++) {
+            byte b = bytes.get(k);
+            byteScratch[n++] = b;
+            if (escaped && b == QUOTE) {
+                k++;
+            }
+        }
+        return new String(byteScratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private void checkIndex(int i) {
+        Objects.checkIndex(i, count);
+    }
+
+    // ===== WRITING =====
+
+    /**
+     * Returns {@code value} ready to be written as one CSV field. Values that
+     * contain the delimiter, a quote or a line break are wrapped in quotes with
+     * embedded quotes doubled; everything else is returned unchanged.
+     */
+    public static String escape(String value, String delimiter) {
+        if (value == null) {
+            return "";
+        }
+        boolean needsQuotes = value.contains(delimiter)
+                || value.indexOf(QUOTE) >= 0
+                || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0;
+        if (!needsQuotes) {
+            return value;
+        }
+        return QUOTE + value.replace("\"", "\"\"") + QUOTE;
+    }
+}
@@ -0,0 +1,131 @@
+package i2jp.oop;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Students and groups saved since the CSV files were last written in full,
+ * kept in {@code registry.delta} next to them in the journal format.
+ * <p>
+ * An incremental save appends one record per changed student
+ * ({@code S;id;index;first;last;date;[grades]}) or group
+ * ({@code M;name;description;[ids]}) stating what it is now, so its cost
+ * depends on what changed rather than on the size of the registry. Loading
+ * replays the records over the CSV files, later ones winning.
+ * <p>
+ * Students only ever gain grades, so a student record never undoes anything
+ * in a newer students.csv. A group record can, so the file starts with a
+ * {@code B} record with the {@link FileStamp} of groups.csv as it was
+ * when the delta was started, and group records are skipped once groups.csv
+ * has been rewritten with other contents since: it is then at least as new as
+ * they are. A record torn by a crash is cut off before the next append, so
+ * later records are never glued onto it. A full save deletes the file.
+ */
+final class DeltaLog {
+    static final String FILE = "registry.delta";
+    private static final String GROUPS_FILE = "groups.csv";
+
+    private DeltaLog() {
+    }
+
+    static boolean exists(Path dir) {
+        return Files.exists(dir.resolve(FILE));
+    }
+
+    /** Appends the records and forces them to disk; does nothing if there are none. */
+    static void append(Path dir, List<Student> students, List<StudentRegistry.GroupRow> groups)
+            throws IOException {
+        if (students.isEmpty() && groups.isEmpty())
+            return;
+        FileChannel channel = FileChannel.open(dir.resolve(FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try (CsvWriter out = new CsvWriter(CsvWriter.Sink.of(channel), ";")) {
+            // A crash may have left half a record; drop it so the next one starts on its own line
+            long end = endOfLastRecord(channel);
+            channel.truncate(end);
+            channel.position(end);
+            if (end == 0) {
+                out.rawField("B").field(FileStamp.of(dir.resolve(GROUPS_FILE))).endRow();
+            }
+            for (Student s : students) {
+                out.rawField("S");
+                s.writeCsvFields(out);
+                out.endRow();
+            }
+            for (StudentRegistry.GroupRow g : groups) {
+                out.rawField("M").field(g.name).field(g.description).listField(g.memberIds).endRow();
+            }
+            out.flush();
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Feeds the records of one type, {@code S} or {@code M}, to
+     * {@code handler} and returns how many there were. Group records are
+     * skipped if groups.csv has been rewritten since they were written.
+     * Student records go over students.csv and group records over groups.csv,
+     * since a rewritten groups.csv may name students that only the delta has.
+     */
+    static int replay(Path dir, String type, MutationJournal.RecordHandler handler) throws IOException {
+        Path file = dir.resolve(FILE);
+        if (!Files.exists(file))
+            return 0;
+        if (type.equals("M") && !FileStamp.of(dir.resolve(GROUPS_FILE)).equals(readStamp(file))) {
+            DomainEvents.warning(GROUPS_FILE + " is newer than " + FILE + ", skipping its group records");
+            return 0;
+        }
+        int[] count = new int[1];
+        MutationJournal.replayFile(file, (f, n) -> {
+            if (n > 0 && f.field(0).equals(type)) {
+                handler.apply(f, n);
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    // Offset just past the last line break that ends a record, or 0 if there is none. Line
+    // breaks inside quoted fields do not count, so the file is read from the start.
+    private static long endOfLastRecord(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        long end = 0;
+        long offset = 0;
+        boolean quoted = false;
+        int n;
+        while ((n = channel.read(buf, offset)) > 0) {
+            for (int i = 0; i < n; i++) {
+                byte b = buf.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    end = offset + i + 1;
+                }
+            }
+            offset += n;
+            buf.clear();
+        }
+        return end;
+    }
+
+    static void delete(Path dir) throws IOException {
+        Files.deleteIfExists(dir.resolve(FILE));
+    }
+
+    private static String readStamp(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String first = in.readLine();
+            CsvTokenizer fields = new CsvTokenizer(";");
+            if (first == null || fields.tokenize(first) != 2 || !fields.field(0).equals("B"))
+                return "";
+            return fields.field(1);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package i2jp.oop;
+
+/**
+ * Where domain events, such as a student being created, are reported.
+ * <p>
+ * Warnings about the project files, such as a damaged journal record that was
+ * skipped during recovery, go through the same sink, so that a GUI can show
+ * them; unless a sink says otherwise they are written to standard error.
+ * <p>
+ * The default sink drops every event, so constructing a student during a bulk
+ * load costs nothing beyond the object itself. Start the application with
+ * {@code -Di2jp.oop.events=console} to have the events written to standard
+ * output by an {@link AsyncEventWriter}, or install any other sink with
+ * {@link #setSink(Sink)}.
+ */
+final class DomainEvents {
+    /** Receives events on the thread that caused them, so it must return quickly. */
+    interface Sink {
+        void studentCreated(Student student);
+
+        /** Reports a problem the application worked around, such as an unreadable record. */
+        default void warning(String message) {
+            System.err.println(message);
+        }
+
+        /** Writes out anything still buffered; called once at shutdown. */
+        default void close() {
+        }
+    }
+
+    static final Sink NONE = student -> {
+    };
+
+    private static volatile Sink sink = defaultSink();
+
+    private DomainEvents() {
+    }
+
+    private static Sink defaultSink() {
+        return "console".equals(System.getProperty("i2jp.oop.events")) ? new AsyncEventWriter(System.out) : NONE;
+    }
+
+    static Sink getSink() {
+        return sink;
+    }
+
+    static void setSink(Sink newSink) {
+        sink = newSink == null ? NONE : newSink;
+    }
+
+    static void studentCreated(Student student) {
+        sink.studentCreated(student);
+    }
+
+    static void warning(String message) {
+        sink.warning(message);
+    }
+}
@@ -0,0 +1,44 @@
+package i2jp.oop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Identifies the contents of a file by its size and CRC-32C, written as
+ * {@code size:crc} in hex, or {@code -} for a file that does not exist.
+ * <p>
+ * Files derived from others (the binary snapshot, the delta) keep the stamps
+ * of the files they were written against and compare them with fresh ones to
+ * tell whether those have been rewritten since. Unlike modification times,
+ * stamps do not depend on how finely the file system records when a file was
+ * written, or on a copy keeping an old time.
+ */
+final class FileStamp {
+    static final String MISSING = "-";
+
+    private FileStamp() {
+    }
+
+    static String of(Path file) throws IOException {
+        if (!Files.exists(file))
+            return MISSING;
+        CRC32C crc = new CRC32C();
+        ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int n;
+            while ((n = channel.read(buf)) >= 0) {
+                buf.flip();
+                crc.update(buf);
+                buf.clear();
+                size += n;
+            }
+        }
+        return size + ":" + Long.toHexString(crc.getValue());
+    }
+}
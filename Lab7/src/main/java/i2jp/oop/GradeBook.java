@@ -0,0 +1,137 @@
+package i2jp.oop;
+
+import java.util.Arrays;
+
+/**
+ * Grades of one student, stored as one-byte codes into the fixed grade scale
+ * in a growable {@code byte[]} instead of a boxed {@code Double[]}.
+ * <p>
+ * A running sum and count of the real grades are kept alongside the codes, so
+ * the average is available in constant time. Empty slots (an empty entry such
+ * as the middle one in {@code [4.0,,3.0]}) are kept so the CSV round-trips, but
+ * they do not count towards the average.
+ */
+final class GradeBook {
+    /** The grade scale; a grade's code is its position in this array. */
+    private static final double[] SCALE = { 2.0, 3.0, 3.5, 4.0, 4.5, 5.0 };
+    private static final byte BLANK = -1;
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] codes = EMPTY;
+    private int size;
+    private int count;
+    private long halfPointSum;
+
+    /** Returns the code of {@code grade}, or -1 if it is not on the scale. */
+    static int codeOf(double grade) {
+        double halves = grade * 2;
+        if (halves != Math.rint(halves)) {
+            return -1;
+        }
+        return switch ((int) halves) {
+            case 4 -> 0;
+            case 6 -> 1;
+            case 7 -> 2;
+            case 8 -> 3;
+            case 9 -> 4;
+            case 10 -> 5;
+            default -> -1;
+        };
+    }
+
+    static double valueOf(int code) {
+        return SCALE[code];
+    }
+
+    static int scaleSize() {
+        return SCALE.length;
+    }
+
+    /** Appends a grade; the caller is expected to have validated it. */
+    void add(double grade) {
+        int code = codeOf(grade);
+        if (code < 0) {
+            throw new IllegalArgumentException("Invalid grade: " + grade);
+        }
+        append((byte) code);
+        count++;
+        halfPointSum += (long) (SCALE[code] * 2);
+    }
+
+    /** Appends an empty slot. */
+    void addBlank() {
+        append(BLANK);
+    }
+
+    /** Appends a slot by its code, as returned by {@link #code(int)}. */
+    void addCode(int code) {
+        if (code == BLANK) {
+            addBlank();
+            return;
+        }
+        if (code < 0 || code >= SCALE.length) {
+            throw new IllegalArgumentException("Invalid grade code: " + code);
+        }
+        append((byte) code);
+        count++;
+        halfPointSum += (long) (SCALE[code] * 2);
+    }
+
+    private void append(byte code) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, Math.max(4, size * 2));
+        }
+        codes[size++] = code;
+    }
+
+    /** Number of slots, including empty ones. */
+    int size() {
+        return size;
+    }
+
+    /** Number of real grades. */
+    int count() {
+        return count;
+    }
+
+    boolean isBlank(int i) {
+        return code(i) == BLANK;
+    }
+
+    /** Grade code of slot {@code i}, or -1 for an empty slot. */
+    int code(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Grade index " + i + " out of bounds for size " + size);
+        }
+        return codes[i];
+    }
+
+    double sum() {
+        return halfPointSum / 2.0;
+    }
+
+    double average() {
+        return count == 0 ? 0 : sum() / count;
+    }
+
+    /** Copies the grades out; empty slots become null. */
+    Double[] toArray() {
+        Double[] result = new Double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = codes[i] == BLANK ? null : SCALE[codes[i]];
+        }
+        return result;
+    }
+
+    /** Appends the grades as {@code [5.0,4.5]}, empty slots as nothing. */
+    StringBuilder appendTo(StringBuilder sb) {
+        sb.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                sb.append(',');
+            if (codes[i] != BLANK)
+                sb.append(SCALE[codes[i]]);
+        }
+        return sb.append(']');
+    }
+}
@@ -0,0 +1,59 @@
+package i2jp.oop;
+
+/**
+ * Running totals over the grades of a changing set of students: how many there
+ * are, their sum in half points and a histogram indexed by {@link GradeBook}
+ * code. {@link Group} adds a student's grade book when the student joins,
+ * subtracts it when the student leaves and adds single grades as they are
+ * given, so the average is read in constant time instead of by visiting every
+ * member. Empty slots are skipped. Thread-safe.
+ */
+final class GradeTotals {
+    private final long[] histogram = new long[GradeBook.scaleSize()];
+    private long count;
+    private long halfPointSum;
+
+    synchronized void add(int code) {
+        histogram[code]++;
+        count++;
+        halfPointSum += halfPoints(code);
+    }
+
+    synchronized void addAll(GradeBook grades) {
+        for (int i = 0; i < grades.size(); i++) {
+            int code = grades.code(i);
+            if (code >= 0) {
+                add(code);
+            }
+        }
+    }
+
+    synchronized void removeAll(GradeBook grades) {
+        for (int i = 0; i < grades.size(); i++) {
+            int code = grades.code(i);
+            if (code >= 0) {
+                histogram[code]--;
+                count--;
+                halfPointSum -= halfPoints(code);
+            }
+        }
+    }
+
+    synchronized long count() {
+        return count;
+    }
+
+    /** Mean of the grades, or 0 if there are none. */
+    synchronized double average() {
+        return count == 0 ? 0 : halfPointSum / 2.0 / count;
+    }
+
+    /** Grade counts indexed by {@link GradeBook} code; a copy. */
+    synchronized long[] histogram() {
+        return histogram.clone();
+    }
+
+    private static long halfPoints(int code) {
+        return Math.round(GradeBook.valueOf(code) * 2);
+    }
+}
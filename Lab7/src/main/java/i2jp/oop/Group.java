@@ -0,0 +1,163 @@
+package i2jp.oop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class Group {
+    /**
+     * Told about every membership change, after it is made and on the thread
+     * that made it. Students are only ever appended, so {@code index} of an
+     * added student is the last position. The members after a removed
+     * student move up one place, so the rest keep the order they joined in.
+     */
+    interface Listener {
+        void studentAdded(Group group, Student student, int index);
+
+        void studentRemoved(Group group, Student student, int index);
+
+        /** A member was given a grade. */
+        default void gradeAdded(Group group, Student student) {
+        }
+    }
+
+    private String name;
+    private String description;
+    private List<Student> students;
+    // index number -> position in students, for O(1) duplicate checks and lookups
+    private final Map<String, Integer> positions = new HashMap<>();
+    private int maxCapacity;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // grades of the current members, kept up to date as they join, leave and are graded
+    private final GradeTotals totals = new GradeTotals();
+    private final Student.GradeListener gradeListener = (s, code) -> {
+        totals.add(code);
+        for (Listener l : listeners) {
+            l.gradeAdded(this, s);
+        }
+    };
+
+    public Group(String name, String description) {
+        validateName(name);
+        this.name = NamePool.intern(name);
+        this.description = description == null ? "" : description;
+        this.students = new ArrayList<>();
+        this.maxCapacity = 50;
+    }
+
+    private void validateName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Group name cannot be empty");
+        }
+    }
+
+    // Membership is guarded by the group's lock, so a view on the FX thread can
+    // read a group that a file task is importing into
+    public void addStudent(Student student) {
+        int index;
+        synchronized (this) {
+            checkCanAdd(student);
+            index = students.size();
+            students.add(student);
+            positions.put(student.getIndexNumber(), index);
+            student.setGradeListener(gradeListener, totals::addAll);
+        }
+        for (Listener l : listeners) {
+            l.studentAdded(this, student, index);
+        }
+    }
+
+    /** Throws exactly what {@link #addStudent(Student)} would, without changing the group. */
+    synchronized void checkCanAdd(Student student) {
+        if (students.size() >= maxCapacity) {
+            throw new IllegalStateException("Group is at maximum capacity (" + maxCapacity + ")");
+        }
+        if (positions.containsKey(student.getIndexNumber())) {
+            throw new IllegalArgumentException(
+                    "Student with index " + student.getIndexNumber() + " already exists in this group");
+        }
+    }
+
+    synchronized boolean contains(Student student) {
+        return positionOf(student) >= 0;
+    }
+
+    // Found without a scan; the members after it shift up, which the capacity keeps short
+    public void removeStudent(Student student) {
+        int index;
+        synchronized (this) {
+            index = positionOf(student);
+            if (index < 0) {
+                throw new IllegalArgumentException("Student not found in this group");
+            }
+            positions.remove(student.getIndexNumber());
+            students.remove(index);
+            for (int i = index; i < students.size(); i++) {
+                positions.put(students.get(i).getIndexNumber(), i);
+            }
+            student.clearGradeListener(gradeListener, totals::removeAll);
+        }
+        for (Listener l : listeners) {
+            l.studentRemoved(this, student, index);
+        }
+    }
+
+    private int positionOf(Student student) {
+        Integer index = positions.get(student.getIndexNumber());
+        return index != null && students.get(index) == student ? index : -1;
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized int size() {
+        return students.size();
+    }
+
+    /** The student at {@code index}, without copying the member list as {@link #getStudents()} does. */
+    public synchronized Student getStudent(int index) {
+        return students.get(index);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /** Mean of all grades of the members, or 0 if there are none; read without visiting them. */
+    public double getAverageGrade() {
+        return totals.average();
+    }
+
+    public long getGradeCount() {
+        return totals.count();
+    }
+
+    /** Number of members' grades for each {@link GradeBook} code. */
+    public long[] getGradeHistogram() {
+        return totals.histogram();
+    }
+
+    public synchronized List<Student> getStudents() {
+        return new ArrayList<>(students);
+    }
+
+    public void setDescription(String description) {
+        this.description = description == null ? "" : description;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + size() + " students)";
+    }
+}
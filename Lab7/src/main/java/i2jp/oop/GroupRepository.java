@@ -0,0 +1,60 @@
+package i2jp.oop;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/** The groups, keyed by name; the counterpart of {@link StudentRepository}. */
+interface GroupRepository extends Iterable<Group> {
+    /** Stores {@code g}, replacing any group with the same name. */
+    void put(Group g);
+
+    /** Stores every group, as {@link #put} would one by one. */
+    default void putAll(Collection<? extends Group> groups) {
+        for (Group g : groups) {
+            put(g);
+        }
+    }
+
+    /** The group with this name, or {@code null}. */
+    Group get(String name);
+
+    default boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * The groups with these names, keyed by name in the order asked for; names
+     * without a group are left out.
+     */
+    default Map<String, Group> findByIds(Collection<String> names) {
+        Map<String, Group> found = new LinkedHashMap<>();
+        for (String name : names) {
+            Group g = get(name);
+            if (g != null) {
+                found.put(name, g);
+            }
+        }
+        return found;
+    }
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    void clear();
+
+    /** Every group, in no particular order. */
+    @Override
+    Iterator<Group> iterator();
+
+    /** Every group, in the order of {@link #iterator()}. */
+    default Stream<Group> streamAll() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+}
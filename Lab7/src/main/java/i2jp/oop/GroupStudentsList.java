@@ -0,0 +1,82 @@
+package i2jp.oop;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Live, read-only view of a group's members for the students table.
+ * <p>
+ * Nothing is copied: {@link #get(int)} reads straight from the group, and the
+ * table only asks for the rows it shows. Membership changes arrive as
+ * {@link Group.Listener} events and are passed on as single-row change events
+ * instead of rebuilding the list. Students appended by a file task on another
+ * thread are published on the FX thread in one batch per
+ * {@code Platform.runLater}; removals only ever happen on the FX thread.
+ * <p>
+ * Call {@link #dispose()} when the view is replaced, so the group stops
+ * notifying it.
+ */
+final class GroupStudentsList extends ObservableListBase<Student> implements Group.Listener {
+    private final Group group;
+    // rows the table has been told about; lags behind the group while appends are pending
+    private int size;
+    private final AtomicBoolean publishPending = new AtomicBoolean();
+
+    GroupStudentsList(Group group) {
+        this.group = group;
+        this.size = group.size();
+        group.addListener(this);
+    }
+
+    Group getGroup() {
+        return group;
+    }
+
+    void dispose() {
+        group.removeListener(this);
+    }
+
+    @Override
+    public Student get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return group.getStudent(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void studentAdded(Group source, Student student, int index) {
+        if (Platform.isFxApplicationThread()) {
+            publishAppended();
+        } else if (publishPending.compareAndSet(false, true)) {
+            Platform.runLater(this::publishAppended);
+        }
+    }
+
+    @Override
+    public void studentRemoved(Group source, Student student, int index) {
+        size--;
+        beginChange();
+        nextRemove(index, student);
+        endChange();
+    }
+
+    private void publishAppended() {
+        publishPending.set(false);
+        int from = size;
+        int to = group.size();
+        if (to > from) {
+            size = to;
+            beginChange();
+            nextAdd(from, to);
+            endChange();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package i2jp.oop;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/** The default group repository: a {@link HashMap} from name to group. */
+final class InMemoryGroupRepository implements GroupRepository {
+    private final Map<String, Group> groups = new HashMap<>();
+
+    @Override
+    public void put(Group g) {
+        groups.put(g.getName(), g);
+    }
+
+    @Override
+    public Group get(String name) {
+        return groups.get(name);
+    }
+
+    @Override
+    public int size() {
+        return groups.size();
+    }
+
+    @Override
+    public void clear() {
+        groups.clear();
+    }
+
+    @Override
+    public Iterator<Group> iterator() {
+        return groups.values().iterator();
+    }
+
+    @Override
+    public Stream<Group> streamAll() {
+        return groups.values().stream();
+    }
+}
@@ -0,0 +1,151 @@
+package i2jp.oop;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads a students.csv file by memory-mapping it and parsing the UTF-8 bytes
+ * in place, instead of decoding the whole file into chars first.
+ * <p>
+ * Only the fields a {@link Student} keeps (id, index, first and last name) are
+ * turned into strings; the date and the grade list are parsed straight from
+ * the mapped bytes. Lines that are not in the semicolon format fall back to
+ * {@link Student#fromCsvLine(String)}, so both readers accept the same input
+ * and report the same errors.
+ */
+final class MappedStudentReader {
+    /** Receives each student in file order. */
+    @FunctionalInterface
+    interface StudentSink {
+        void accept(Student student) throws IOException;
+    }
+
+    // progress is reported, and cancellation checked, once per this many lines
+    private static final int PROGRESS_LINES = 4096;
+
+    private final CsvTokenizer fields = new CsvTokenizer(";");
+    private final CsvTokenizer gradeList = new CsvTokenizer(",");
+
+    void read(File file, StudentSink sink) throws IOException {
+        read(file, sink, Progress.NONE);
+    }
+
+    /** Reads the file, reporting progress in bytes. */
+    void read(File file, StudentSink sink, Progress progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file.getName() + " is too large to map (over 2 GB)");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int limit = (int) size;
+            int lineStart = 0;
+            int lines = 0;
+            while (lineStart < limit) {
+                if (++lines % PROGRESS_LINES == 0) {
+                    progress.step(lineStart, limit);
+                }
+                int lineEnd = lineStart;
+                while (lineEnd < limit && data.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int next = lineEnd + 1;
+                while (lineStart < lineEnd && (data.get(lineStart) & 0xFF) <= ' ') {
+                    lineStart++;
+                }
+                while (lineEnd > lineStart && (data.get(lineEnd - 1) & 0xFF) <= ' ') {
+                    lineEnd--;
+                }
+                if (lineStart < lineEnd) {
+                    sink.accept(parseLine(data, lineStart, lineEnd));
+                }
+                lineStart = next;
+            }
+            progress.update(limit, limit);
+        }
+    }
+
+    private Student parseLine(ByteBuffer data, int from, int to) {
+        if (!contains(data, from, to, (byte) ';')) {
+            return Student.fromCsvLine(decode(data, from, to));
+        }
+        // id;index;first;last;date;[grades]
+        int n = fields.tokenize(data, from, to, 6);
+        if (n < 5) {
+            throw new IllegalArgumentException("Invalid semicolon CSV format: expected at least 5 fields");
+        }
+        LocalDate date = parseDate(data, fields.trimmedStart(4), fields.trimmedEnd(4));
+        GradeBook grades = n >= 6 ? parseGrades() : new GradeBook();
+        return new Student(fields.trimmedField(0), fields.trimmedField(2), fields.trimmedField(3), date,
+                fields.trimmedField(1), grades);
+    }
+
+    private GradeBook parseGrades() {
+        int n = gradeList.tokenizeList(fields, 5);
+        GradeBook result = new GradeBook();
+        for (int i = 0; i < n; i++) {
+            if (gradeList.isBlank(i)) {
+                result.addBlank();
+                continue;
+            }
+            try {
+                double val = gradeList.doubleField(i);
+                if (GradeBook.codeOf(val) < 0) {
+                    throw new IllegalArgumentException("Invalid grade value: " + val);
+                }
+                result.add(val);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid grade format: '" + gradeList.trimmedField(i) + "'");
+            }
+        }
+        return result;
+    }
+
+    // Digits straight from the mapped bytes; anything DateCodec cannot resolve is decoded and
+    // parsed by it, so errors match Student.fromCsvLine
+    private static LocalDate parseDate(ByteBuffer data, int from, int to) {
+        if (to - from == DateCodec.LENGTH && data.get(from + 2) == '.' && data.get(from + 5) == '.') {
+            LocalDate date = DateCodec.resolve(digits(data, from, 2), digits(data, from + 3, 2),
+                    digits(data, from + 6, 4));
+            if (date != null)
+                return date;
+        }
+        String text = decode(data, from, to);
+        try {
+            return DateCodec.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format: " + e.getParsedString());
+        }
+    }
+
+    private static int digits(ByteBuffer data, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = data.get(i) - '0';
+            if (d < 0 || d > 9)
+                return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static boolean contains(ByteBuffer data, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == b)
+                return true;
+        }
+        return false;
+    }
+
+    private static String decode(ByteBuffer data, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        data.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
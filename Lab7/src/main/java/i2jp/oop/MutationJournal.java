@@ -0,0 +1,198 @@
+package i2jp.oop;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Write-ahead log of registry mutations, kept next to the CSV snapshot as
+ * numbered segment files ({@code registry.000001.journal}, ...).
+ * <p>
+ * Every mutation is one semicolon-separated record, written with a single
+ * append (and by default forced to disk) before the mutation is applied in
+ * memory. To compact, the registry {@link #seal() seals} the active segment,
+ * which starts the next one, publishes a snapshot that covers everything up to
+ * the sealed segment, and then {@link #deleteThrough(long) deletes} it.
+ * <p>
+ * On start-up the CSV snapshot is loaded and all remaining segments are
+ * {@link #replay(Path, RecordHandler) replayed} in order. Records must
+ * therefore be idempotent: each one states what should be true afterwards
+ * (this student is in that group) rather than what to change. A record ends at
+ * the first line break outside a quoted field. A crash can only tear the last
+ * record of the newest segment; replay ignores it.
+ */
+final class MutationJournal implements Closeable {
+    private static final String PREFIX = "registry.";
+    private static final String SUFFIX = ".journal";
+    private static final int BUFFER_SIZE = 4096;
+
+    /** Writes the fields of one record; the journal ends the row. */
+    @FunctionalInterface
+    interface Record {
+        void writeTo(CsvWriter out) throws IOException;
+    }
+
+    /** Applies one replayed record, already split into fields. */
+    @FunctionalInterface
+    interface RecordHandler {
+        void apply(CsvTokenizer fields, int count);
+    }
+
+    private final Path dir;
+    private final boolean sync;
+    private long segment;
+    private FileChannel channel;
+    private CsvWriter out;
+    private int records;
+
+    /**
+     * Opens a new segment numbered after any that already exist in {@code dir}.
+     * With {@code sync}, every record is forced to disk before append returns.
+     */
+    MutationJournal(Path dir, boolean sync) throws IOException {
+        this.dir = dir;
+        this.sync = sync;
+        List<Long> existing = segmentNumbers(dir);
+        this.segment = existing.isEmpty() ? 0 : existing.get(existing.size() - 1);
+        openNext();
+    }
+
+    void append(Record record) throws IOException {
+        record.writeTo(out);
+        out.endRow();
+        out.flush();
+        if (sync) {
+            channel.force(false);
+        }
+        records++;
+    }
+
+    /** Number of records in the active segment. */
+    int size() {
+        return records;
+    }
+
+    /** Closes the active segment and starts the next one; returns the number of the sealed one. */
+    long seal() throws IOException {
+        long sealed = segment;
+        out.close();
+        openNext();
+        return sealed;
+    }
+
+    /**
+     * Deletes the segments numbered up to and including {@code last}. Only call
+     * this once a snapshot covering them has been published. Does not touch the
+     * active segment, so it may run on another thread than {@link #append}.
+     */
+    void deleteThrough(long last) throws IOException {
+        for (long n : segmentNumbers(dir)) {
+            if (n <= last) {
+                Files.deleteIfExists(segmentPath(dir, n));
+            }
+        }
+    }
+
+    /** Closes the active segment, deleting it if nothing was appended. */
+    @Override
+    public void close() throws IOException {
+        out.close();
+        if (records == 0) {
+            Files.deleteIfExists(segmentPath(dir, segment));
+        }
+    }
+
+    private void openNext() throws IOException {
+        segment++;
+        channel = FileChannel.open(segmentPath(dir, segment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        out = new CsvWriter(CsvWriter.Sink.of(channel), ";", BUFFER_SIZE);
+        records = 0;
+    }
+
+    // ===== REPLAY =====
+
+    /** Feeds every complete record of every segment in {@code dir} to {@code handler}, oldest first. */
+    static int replay(Path dir, RecordHandler handler) throws IOException {
+        int applied = 0;
+        for (long n : segmentNumbers(dir)) {
+            applied += replayFile(segmentPath(dir, n), handler);
+        }
+        return applied;
+    }
+
+    /** Feeds every complete record of one file in the journal format to {@code handler}. */
+    static int replayFile(Path file, RecordHandler handler) throws IOException {
+        CsvTokenizer fields = new CsvTokenizer(";");
+        int applied = 0;
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        int lineStart = 0;
+        int recordNumber = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = recordEnd(text, lineStart);
+            recordNumber++;
+            if (lineEnd < 0) {
+                DomainEvents.warning("Ignoring incomplete last record in " + file.getFileName());
+                break;
+            }
+            String line = text.substring(lineStart, lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r'
+                    ? lineEnd - 1
+                    : lineEnd);
+            lineStart = lineEnd + 1;
+            if (line.isBlank())
+                continue;
+            try {
+                handler.apply(fields, fields.tokenize(line));
+                applied++;
+            } catch (RuntimeException e) {
+                DomainEvents.warning("Skipping record " + file.getFileName() + ":" + recordNumber + ": "
+                        + e.getMessage());
+            }
+        }
+        return applied;
+    }
+
+    // The line break ending the record that starts at from, skipping those inside quoted
+    // fields, which hold names and descriptions as written; -1 if the record is not ended
+    private static int recordEnd(String text, int from) {
+        boolean quoted = false;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '\n' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Long> segmentNumbers(Path dir) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String number = name.substring(PREFIX.length(), name.length() - SUFFIX.length());
+                try {
+                    numbers.add(Long.parseLong(number));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private static Path segmentPath(Path dir, long number) {
+        return dir.resolve(String.format("%s%06d%s", PREFIX, number, SUFFIX));
+    }
+}
@@ -0,0 +1,34 @@
+package i2jp.oop;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Progress reporting and cooperative cancellation for the long registry file
+ * operations. Both methods are called on the thread doing the work, which
+ * stops at the next {@link #step} once {@link #isCancelled()} returns true.
+ */
+interface Progress {
+    /** Reports nothing and never cancels. */
+    Progress NONE = new Progress() {
+        @Override
+        public void update(long done, long total) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    void update(long done, long total);
+
+    boolean isCancelled();
+
+    /** Reports progress, or throws {@link CancellationException} if the operation was cancelled. */
+    default void step(long done, long total) {
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+        update(done, total);
+    }
+}
@@ -0,0 +1,303 @@
+package i2jp.oop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a whole registry, loaded at start-up instead of the CSV
+ * files while they are still as they were when it was written.
+ * <p>
+ * Nothing in it needs parsing: every distinct string (ids, index numbers,
+ * names, group names) is stored once in a string table and referenced by
+ * number, student fields are stored column by column as {@code int} arrays,
+ * birth dates as epoch days and grades as the one-byte codes of
+ * {@link GradeBook}. Group members are student ordinals. A CRC-32 over the
+ * whole content guards against torn or damaged files. The header holds the
+ * {@link FileStamp} of each CSV file saved with the snapshot, so a CSV file
+ * edited or copied in afterwards is noticed whatever its modification time.
+ *
+ * <pre>
+ * int magic 'SMRS', int version
+ * int sources, { int length, UTF-8 stamp }*
+ * int strings, { int length, UTF-8 bytes }*
+ * int students, int[] id, int[] index, int[] first, int[] last, int[] epochDay,
+ *               int[students + 1] gradeOffset, byte[] gradeCodes
+ * int groups, { int name, int description, int members, int[] ordinal }*
+ * int crc32 of all preceding bytes
+ * </pre>
+ */
+final class RegistrySnapshot {
+    private static final int MAGIC = 0x534D5253; // "SMRS"
+    private static final int VERSION = 2;
+    private static final int NO_STRING = -1;
+
+    /** Students in snapshot order and groups with their member ordinals. */
+    static final class Contents {
+        final Student[] students;
+        final List<String> groupNames;
+        final List<String> groupDescriptions;
+        final List<int[]> groupMembers;
+
+        Contents(Student[] students, int groups) {
+            this.students = students;
+            this.groupNames = new ArrayList<>(groups);
+            this.groupDescriptions = new ArrayList<>(groups);
+            this.groupMembers = new ArrayList<>(groups);
+        }
+    }
+
+    private RegistrySnapshot() {
+    }
+
+    // ===== WRITING =====
+
+    /**
+     * Writes the snapshot atomically: readers see the old file or the complete
+     * new one. {@code sources} are the CSV files saved with it, as they are now;
+     * see {@link #isCurrent}.
+     */
+    static void write(Path file, Collection<Student> students, List<StudentRegistry.GroupRow> groups,
+            List<Path> sources) throws IOException {
+        List<byte[]> stamps = new ArrayList<>(sources.size());
+        long stampBytes = 4;
+        for (Path source : sources) {
+            byte[] stamp = FileStamp.of(source).getBytes(StandardCharsets.UTF_8);
+            stamps.add(stamp);
+            stampBytes += 4 + stamp.length;
+        }
+        StringTable strings = new StringTable();
+        int n = students.size();
+        int[] ids = new int[n];
+        int[] indexes = new int[n];
+        int[] firsts = new int[n];
+        int[] lasts = new int[n];
+        int[] days = new int[n];
+        int[] gradeOffsets = new int[n + 1];
+        Map<String, Integer> ordinals = new HashMap<>(n * 4 / 3 + 1);
+        int i = 0;
+        for (Student s : students) {
+            ids[i] = strings.ref(s.getId());
+            indexes[i] = strings.ref(s.getIndexNumber());
+            firsts[i] = strings.ref(s.getFirstName());
+            lasts[i] = strings.ref(s.getLastName());
+            days[i] = Math.toIntExact(s.getBirthDate().toEpochDay());
+            gradeOffsets[i + 1] = gradeOffsets[i] + s.getGradeBook().size();
+            if (s.getId() != null) {
+                ordinals.putIfAbsent(s.getId(), i);
+            }
+            i++;
+        }
+        int[][] members = new int[groups.size()][];
+        int[] groupNames = new int[groups.size()];
+        int[] groupDescriptions = new int[groups.size()];
+        long groupBytes = 0;
+        for (int g = 0; g < groups.size(); g++) {
+            StudentRegistry.GroupRow row = groups.get(g);
+            groupNames[g] = strings.ref(row.name);
+            groupDescriptions[g] = strings.ref(row.description);
+            members[g] = row.memberIds.stream()
+                    .map(ordinals::get)
+                    .filter(o -> o != null)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            groupBytes += 12L + 4L * members[g].length;
+        }
+
+        long size = 8 + stampBytes + strings.byteSize() + 4 + 4L * (6L * n + 1) + gradeOffsets[n] + 4 + groupBytes + 4;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Registry too large for a snapshot");
+        }
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        buf.putInt(MAGIC).putInt(VERSION);
+        buf.putInt(stamps.size());
+        for (byte[] stamp : stamps) {
+            buf.putInt(stamp.length).put(stamp);
+        }
+        strings.writeTo(buf);
+        buf.putInt(n);
+        for (int[] column : new int[][] { ids, indexes, firsts, lasts, days, gradeOffsets }) {
+            for (int value : column) {
+                buf.putInt(value);
+            }
+        }
+        for (Student s : students) {
+            GradeBook grades = s.getGradeBook();
+            for (int k = 0; k < grades.size(); k++) {
+                buf.put((byte) grades.code(k));
+            }
+        }
+        buf.putInt(groups.size());
+        for (int g = 0; g < groups.size(); g++) {
+            buf.putInt(groupNames[g]).putInt(groupDescriptions[g]).putInt(members[g].length);
+            for (int m : members[g]) {
+                buf.putInt(m);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putInt((int) crc.getValue());
+
+        try (CsvWriter.Sink sink = CsvWriter.Sink.atomic(file)) {
+            sink.write(buf.array(), 0, buf.position());
+            sink.commit();
+        }
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private long bytes;
+
+        int ref(String s) {
+            if (s == null) {
+                return NO_STRING;
+            }
+            Integer ref = refs.get(s);
+            if (ref == null) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                ref = encoded.size();
+                refs.put(s, ref);
+                encoded.add(utf8);
+                bytes += 4 + utf8.length;
+            }
+            return ref;
+        }
+
+        long byteSize() {
+            return 4 + bytes;
+        }
+
+        void writeTo(ByteBuffer buf) {
+            buf.putInt(encoded.size());
+            for (byte[] utf8 : encoded) {
+                buf.putInt(utf8.length).put(utf8);
+            }
+        }
+    }
+
+    // ===== READING =====
+
+    /**
+     * Whether {@code file} is a snapshot of this version written with these
+     * {@code sources}, in this order, and none of them that still exists has
+     * been changed since. Only the header is read; {@link #read} checks the rest.
+     */
+    static boolean isCurrent(Path file, List<Path> sources) throws IOException {
+        if (!Files.exists(file))
+            return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 4096));
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION || buf.getInt() != sources.size())
+                return false;
+            for (Path source : sources) {
+                int length = buf.getInt();
+                if (length < 0 || length > buf.remaining())
+                    return false;
+                byte[] stamp = new byte[length];
+                buf.get(stamp);
+                if (Files.exists(source)
+                        && !FileStamp.of(source).equals(new String(stamp, StandardCharsets.UTF_8)))
+                    return false;
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // BufferUnderflowException: too short for a header
+            return false;
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write}.
+     *
+     * @throws IOException if the file cannot be read, is not a snapshot of this
+     *                     version or fails its checksum
+     */
+    static Contents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 12 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a registry snapshot: " + file.getFileName());
+            }
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int end = (int) size - 4;
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate().limit(end));
+            if (buf.getInt(end) != (int) crc.getValue()) {
+                throw new IOException("Snapshot checksum mismatch: " + file.getFileName());
+            }
+            buf.limit(end);
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " registry snapshot: " + file.getFileName());
+            }
+            return decode(buf);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, bad references, invalid student data
+            throw new IOException("Corrupt registry snapshot " + file.getFileName() + ": " + e, e);
+        }
+    }
+
+    private static Contents decode(ByteBuffer buf) {
+        int sources = buf.getInt();
+        for (int i = 0; i < sources; i++) {
+            int length = buf.getInt();
+            buf.position(buf.position() + length);
+        }
+        String[] strings = new String[buf.getInt()];
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < strings.length; i++) {
+            int length = buf.getInt();
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buf.get(scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        int n = buf.getInt();
+        int[][] columns = new int[6][];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = new int[c == 5 ? n + 1 : n];
+            buf.asIntBuffer().get(columns[c]);
+            buf.position(buf.position() + 4 * columns[c].length);
+        }
+        int[] gradeOffsets = columns[5];
+        Student[] students = new Student[n];
+        for (int i = 0; i < n; i++) {
+            GradeBook grades = new GradeBook();
+            for (int k = gradeOffsets[i]; k < gradeOffsets[i + 1]; k++) {
+                grades.addCode(buf.get());
+            }
+            students[i] = new Student(string(strings, columns[0][i]), strings[columns[2][i]],
+                    strings[columns[3][i]], LocalDate.ofEpochDay(columns[4][i]), strings[columns[1][i]], grades);
+        }
+
+        int groupCount = buf.getInt();
+        Contents contents = new Contents(students, groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            contents.groupNames.add(strings[buf.getInt()]);
+            contents.groupDescriptions.add(string(strings, buf.getInt()));
+            int[] members = new int[buf.getInt()];
+            for (int m = 0; m < members.length; m++) {
+                members[m] = buf.getInt();
+            }
+            contents.groupMembers.add(members);
+        }
+        return contents;
+    }
+
+    private static String string(String[] strings, int ref) {
+        return ref == NO_STRING ? null : strings[ref];
+    }
+}
@@ -0,0 +1,278 @@
+package i2jp.oop;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.function.Consumer;
+
+class Student {
+    /** Told about every grade added to a student, on the thread that added it. */
+    interface GradeListener {
+        void gradeAdded(Student student, int code);
+    }
+
+    private String firstName;
+    private String lastName;
+    private LocalDate birthDate;
+    private String indexNumber;
+    private String id;
+    private final GradeBook grades;
+    // set by the group the student belongs to, which keeps running grade totals
+    private volatile GradeListener gradeListener;
+    // held while a grade is added and while a group starts or stops listening, so the group's
+    // totals count every grade exactly once
+    private final Object gradeLock = new Object();
+    private static final ThreadLocal<CsvTokenizer> SEMICOLON_FIELDS = ThreadLocal
+            .withInitial(() -> new CsvTokenizer(";"));
+    private static final ThreadLocal<CsvTokenizer> COMMA_FIELDS = ThreadLocal
+            .withInitial(() -> new CsvTokenizer(","));
+    private static final ThreadLocal<CsvTokenizer> GRADE_LIST = ThreadLocal
+            .withInitial(() -> new CsvTokenizer(","));
+
+    public Student(String firstName, String lastName, LocalDate birthDate, String indexNumber) {
+        this(null, firstName, lastName, birthDate, indexNumber, "[]");
+    }
+
+    public Student(String firstName, String lastName, LocalDate birthDate, String indexNumber, String grades) {
+        this(null, firstName, lastName, birthDate, indexNumber, grades);
+    }
+
+    public Student(String id, String firstName, String lastName, LocalDate birthDate, String indexNumber,
+            String grades) {
+        validateFirstName(firstName);
+        validateLastName(lastName);
+        validateBirthDate(birthDate);
+        validateIndexNumber(indexNumber);
+        validateGrades(grades);
+
+        this.id = id;
+        this.firstName = NamePool.intern(firstName);
+        this.lastName = NamePool.intern(lastName);
+        this.birthDate = birthDate;
+        this.indexNumber = indexNumber;
+        this.grades = fillGrades(grades);
+        DomainEvents.studentCreated(this);
+    }
+
+    // Used by loaders that parse grades themselves
+    Student(String id, String firstName, String lastName, LocalDate birthDate, String indexNumber,
+            GradeBook grades) {
+        validateFirstName(firstName);
+        validateLastName(lastName);
+        validateBirthDate(birthDate);
+        validateIndexNumber(indexNumber);
+        if (grades == null)
+            throw new IllegalArgumentException("Grades cannot be null");
+
+        this.id = id;
+        this.firstName = NamePool.intern(firstName);
+        this.lastName = NamePool.intern(lastName);
+        this.birthDate = birthDate;
+        this.indexNumber = indexNumber;
+        this.grades = grades;
+        DomainEvents.studentCreated(this);
+    }
+
+    private GradeBook fillGrades(String grades) {
+        GradeBook result = new GradeBook();
+        if (grades == null)
+            return result;
+
+        CsvTokenizer parts = GRADE_LIST.get();
+        int n = parts.tokenizeList(grades);
+        for (int i = 0; i < n; i++) {
+            if (parts.isBlank(i)) {
+                result.addBlank();
+                continue;
+            }
+            try {
+                double val = parts.doubleField(i);
+                if (GradeBook.codeOf(val) < 0) {
+                    throw new IllegalArgumentException("Invalid grade value: " + val);
+                }
+                result.add(val);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid grade format: '" + parts.trimmedField(i) + "'");
+            }
+        }
+        return result;
+    }
+
+    private void validateFirstName(String firstName) {
+        if (firstName == null || firstName.trim().isEmpty()) {
+            throw new IllegalArgumentException("First name cannot be empty");
+        }
+    }
+
+    private void validateLastName(String lastName) {
+        if (lastName == null || lastName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Last name cannot be empty");
+        }
+    }
+
+    private void validateBirthDate(LocalDate birthDate) {
+        if (birthDate == null) {
+            throw new IllegalArgumentException("Birth date cannot be null");
+        }
+        if (birthDate.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Birth date cannot be in the future");
+        }
+    }
+
+    private void validateIndexNumber(String indexNumber) {
+        if (indexNumber == null || indexNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Index number cannot be empty");
+        }
+    }
+
+    private void validateGrades(String grades) {
+        if (grades == null)
+            throw new IllegalArgumentException("Grades cannot be null");
+    }
+
+    public void addGrade(double grade) {
+        if (GradeBook.codeOf(grade) < 0) {
+            throw new IllegalArgumentException("Invalid grade: " + grade + ". Allowed: 2.0, 3.0, 3.5, 4.0, 4.5, 5.0");
+        }
+        synchronized (gradeLock) {
+            grades.add(grade);
+            GradeListener listener = gradeListener;
+            if (listener != null) {
+                listener.gradeAdded(this, GradeBook.codeOf(grade));
+            }
+        }
+    }
+
+    /**
+     * Installs the listener and hands the grades given so far to
+     * {@code gradesSoFar}, with no grade added in between: each grade reaches
+     * the listener's owner exactly once, either there or as an event.
+     */
+    void setGradeListener(GradeListener listener, Consumer<GradeBook> gradesSoFar) {
+        synchronized (gradeLock) {
+            gradeListener = listener;
+            gradesSoFar.accept(grades);
+        }
+    }
+
+    /**
+     * Clears the listener if it is still {@code listener} and hands the grades
+     * given so far to {@code gradesSoFar}, with no grade added in between.
+     */
+    void clearGradeListener(GradeListener listener, Consumer<GradeBook> gradesSoFar) {
+        synchronized (gradeLock) {
+            if (gradeListener == listener) {
+                gradeListener = null;
+            }
+            gradesSoFar.accept(grades);
+        }
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public LocalDate getBirthDate() {
+        return birthDate;
+    }
+
+    public String getIndexNumber() {
+        return indexNumber;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // Students created without an id get one when they are registered
+    void assignId(String id) {
+        if (this.id != null && !this.id.isEmpty()) {
+            throw new IllegalStateException("Student already has id " + this.id);
+        }
+        this.id = id;
+    }
+
+    public Double[] getGrades() {
+        return grades.toArray();
+    }
+
+    // Primitive view of the grades, for callers that want to avoid boxing
+    GradeBook getGradeBook() {
+        return grades;
+    }
+
+    public String getBirthDateFormatted() {
+        return DateCodec.format(birthDate);
+    }
+
+    public double getAverageGrade() {
+        return grades.average();
+    }
+
+    private String gradesToCsvField() {
+        return grades.appendTo(new StringBuilder()).toString();
+    }
+
+    public String toCsvLine() {
+        // semicolon format: id;index;first;last;date;[grades]
+        String idField = id == null ? "" : id;
+        return String.join(";", CsvTokenizer.escape(idField, ";"), CsvTokenizer.escape(indexNumber, ";"),
+                CsvTokenizer.escape(firstName, ";"), CsvTokenizer.escape(lastName, ";"), getBirthDateFormatted(),
+                gradesToCsvField());
+    }
+
+    /** Writes this student as one row, in the same format as {@link #toCsvLine()}. */
+    void writeCsvRow(CsvWriter out) throws IOException {
+        writeCsvFields(out);
+        out.endRow();
+    }
+
+    /** Writes the six student fields without ending the row. */
+    void writeCsvFields(CsvWriter out) throws IOException {
+        out.field(id).field(indexNumber).field(firstName).field(lastName).field(birthDate).field(grades);
+    }
+
+    public static Student fromCsvLine(String line) {
+        if (line == null || line.trim().isEmpty()) {
+            throw new IllegalArgumentException("CSV line is empty");
+        }
+        String s = line.trim();
+        try {
+            if (s.contains(";")) {
+                // Expected semicolon format: id;index;first;last;date;[grades]
+                CsvTokenizer parts = SEMICOLON_FIELDS.get();
+                int n = parts.tokenize(s, 6);
+                if (n < 5) {
+                    throw new IllegalArgumentException("Invalid semicolon CSV format: expected at least 5 fields");
+                }
+                LocalDate date = DateCodec.parse(parts.trimmedField(4));
+                String gradesField = n >= 6 ? parts.trimmedField(5) : "[]";
+                // parts: 0=id,1=index,2=first,3=last,4=date,5=grades
+                return new Student(parts.trimmedField(0), parts.trimmedField(2), parts.trimmedField(3), date,
+                        parts.trimmedField(1), gradesField);
+            } else {
+                // At most 5 fields so the grades field (last) may contain commas
+                CsvTokenizer parts = COMMA_FIELDS.get();
+                int n = parts.tokenize(s, 5);
+                if (n < 4) {
+                    throw new IllegalArgumentException("Invalid CSV format: expected at least 4 fields");
+                }
+                LocalDate date = DateCodec.parse(parts.trimmedField(2));
+                String gradesField = n >= 5 ? parts.trimmedField(4) : "[]";
+                return new Student(parts.trimmedField(0), parts.trimmedField(1), date, parts.trimmedField(3),
+                        gradesField);
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format: " + e.getParsedString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return firstName + " " + lastName + " (" + indexNumber + ")";
+    }
+}
@@ -0,0 +1,62 @@
+package i2jp.oop;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.value.ObservableValue;
+
+/**
+ * Formatted table cells for the students most recently shown.
+ * <p>
+ * The table asks for a cell value every time a row is laid out or scrolled
+ * into view. Each student's cells are formatted once, the average with
+ * {@code String.format} included, and handed out again until the student falls
+ * out of the least-recently-used window, which only has to be a few screens of
+ * rows.
+ */
+final class StudentCellCache {
+    enum Column {
+        FIRST_NAME, LAST_NAME, BIRTH_DATE, INDEX_NUMBER, AVERAGE_GRADE
+    }
+
+    private static final int DEFAULT_CAPACITY = 2048;
+
+    private final Map<Student, ReadOnlyStringWrapper[]> cells;
+
+    StudentCellCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    StudentCellCache(int capacity) {
+        this.cells = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Student, ReadOnlyStringWrapper[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    ObservableValue<String> get(Student student, Column column) {
+        return cells.computeIfAbsent(student, StudentCellCache::format)[column.ordinal()].getReadOnlyProperty();
+    }
+
+    /** Drops the cached cells of a student whose fields or grades have changed. */
+    void invalidate(Student student) {
+        cells.remove(student);
+    }
+
+    void clear() {
+        cells.clear();
+    }
+
+    private static ReadOnlyStringWrapper[] format(Student s) {
+        ReadOnlyStringWrapper[] row = new ReadOnlyStringWrapper[Column.values().length];
+        row[Column.FIRST_NAME.ordinal()] = new ReadOnlyStringWrapper(s.getFirstName());
+        row[Column.LAST_NAME.ordinal()] = new ReadOnlyStringWrapper(s.getLastName());
+        row[Column.BIRTH_DATE.ordinal()] = new ReadOnlyStringWrapper(s.getBirthDateFormatted());
+        row[Column.INDEX_NUMBER.ordinal()] = new ReadOnlyStringWrapper(s.getIndexNumber());
+        row[Column.AVERAGE_GRADE.ordinal()] = new ReadOnlyStringWrapper(String.format("%.2f", s.getAverageGrade()));
+        return row;
+    }
+}
@@ -1,26 +1,23 @@
 package i2jp.oop;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.Arrays;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javafx.application.Application;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -31,6 +28,7 @@ import javafx.scene.control.ListView;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.Separator;
 import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.TableColumn;
@@ -40,629 +38,168 @@ import javafx.scene.control.TextInputDialog;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
-// ==================== DOMAIN CLASSES ====================
-
-class Student {
-    private String firstName;
-    private String lastName;
-    private LocalDate birthDate;
-    private String indexNumber;
-    private String id;
-    private Double[] grades;
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-    private static final Set<Double> VALID_GRADES = Set.of(2.0, 3.0, 3.5, 4.0, 4.5, 5.0);
+public class StudentManagerFx extends Application {
+    private StudentRegistry registry;
+    private ListView<Group> groupsListView;
+    private TableView<Student> studentsTable;
+    private ObservableList<Group> groupsList;
+    private GroupStudentsList studentsView;
+    private final StudentCellCache studentCells = new StudentCellCache();
+    private Label statusLabel;
+    private Group currentGroup;
+    private TextField searchField;
+    private final ObservableList<Student> searchResultsList = FXCollections.observableArrayList();
+    private static final int SEARCH_LIMIT = 100;
+    private static final int TOP_STUDENTS = 3;
+
+    // File operations run one at a time on this thread. The registry is not
+    // thread-safe, so while a task runs it owns the registry and the panels
+    // that would touch it are disabled.
+    private ExecutorService fileExecutor;
+    private Task<?> currentTask;
+    private ProgressBar progressBar;
+    private Button cancelButton;
+    private VBox groupsPanel;
+    private VBox actionsPanel;
+    // Warnings from the registry, its journal and the delta log while the
+    // current file task runs; only touched on the FX thread.
+    private final List<String> fileWarnings = new ArrayList<>();
+    private static final int WARNINGS_SHOWN = 10;
 
-    public Student(String firstName, String lastName, LocalDate birthDate, String indexNumber) {
-        this(null, firstName, lastName, birthDate, indexNumber, "[]");
-    }
+    @Override
+    public void start(Stage stage) {
+        reportWarningsHere();
+        registry = new StudentRegistry();
+        groupsList = FXCollections.observableArrayList();
+        fileExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "file-io");
+            t.setDaemon(true);
+            return t;
+        });
 
-    public Student(String firstName, String lastName, LocalDate birthDate, String indexNumber, String grades) {
-        this(null, firstName, lastName, birthDate, indexNumber, grades);
-    }
+        BorderPane root = new BorderPane();
+        root.setTop(createMenuBar(stage));
+        groupsPanel = createGroupsPanel();
+        actionsPanel = createActionsPanel();
+        root.setLeft(groupsPanel);
+        root.setCenter(createStudentsPanel());
+        root.setRight(actionsPanel);
+        root.setBottom(createStatusBar());
 
-    public Student(String id, String firstName, String lastName, LocalDate birthDate, String indexNumber,
-            String grades) {
-        validateFirstName(firstName);
-        validateLastName(lastName);
-        validateBirthDate(birthDate);
-        validateIndexNumber(indexNumber);
-        validateGrades(grades);
-
-        System.out.println("Creating student: " + firstName + " " + lastName + ", DOB: " + birthDate + ", Index: "
-                + indexNumber + ", Grades: " + grades);
-
-        this.id = id;
-        this.firstName = firstName;
-        this.lastName = lastName;
-        this.birthDate = birthDate;
-        this.indexNumber = indexNumber;
-        this.grades = fillGrades(grades);
-    }
+        Scene scene = new Scene(root, 1100, 650);
+        stage.setScene(scene);
+        stage.setTitle("Student & Group Manager — JavaFX");
+        stage.show();
 
-    private Double[] fillGrades(String grades) {
-        if (grades == null)
-            return new Double[0];
-
-        String s = grades.trim();
-        if (s.startsWith("[") && s.endsWith("]")) {
-            String inner = s.substring(1, s.length() - 1).trim();
-            if (inner.isEmpty())
-                return new Double[0];
-
-            String[] parts = inner.split(",");
-            Double[] result = new Double[parts.length];
-            for (int i = 0; i < parts.length; i++) {
-                String p = parts[i].trim();
-                if (p.isEmpty()) {
-                    result[i] = null;
-                    continue;
-                }
+        // Try to load students.csv and groups.csv from project root
+        runInBackground("Loading project files", "Journal Error", new Task<List<Group>>() {
+            @Override
+            protected List<Group> call() throws Exception {
+                registry.loadFromProjectRoot();
                 try {
-                    double val = Double.parseDouble(p);
-                    if (!VALID_GRADES.contains(val)) {
-                        throw new IllegalArgumentException("Invalid grade value: " + val);
-                    }
-                    result[i] = val;
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("Invalid grade format: '" + p + "'");
-                }
-            }
-            return result;
-        }
-
-        // If not bracketed, try to parse as single value or comma-separated without
-        // brackets
-        if (s.isEmpty())
-            return new Double[0];
-        String[] parts = s.split(",");
-        Double[] result = new Double[parts.length];
-        for (int i = 0; i < parts.length; i++) {
-            String p = parts[i].trim();
-            if (p.isEmpty()) {
-                result[i] = null;
-                continue;
-            }
-            try {
-                double val = Double.parseDouble(p);
-                if (!VALID_GRADES.contains(val)) {
-                    throw new IllegalArgumentException("Invalid grade value: " + val);
+                    registry.openJournal(new File("."));
+                } catch (IOException e) {
+                    updateMessage("Changes will only be saved with the Save buttons: " + e.getMessage());
                 }
-                result[i] = val;
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Invalid grade format: '" + p + "'");
+                return registry.getAllGroups();
             }
-        }
-        return result;
-    }
-
-    private void validateFirstName(String firstName) {
-        if (firstName == null || firstName.trim().isEmpty()) {
-            throw new IllegalArgumentException("First name cannot be empty");
-        }
-    }
-
-    private void validateLastName(String lastName) {
-        if (lastName == null || lastName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Last name cannot be empty");
-        }
-    }
-
-    private void validateBirthDate(LocalDate birthDate) {
-        if (birthDate == null) {
-            throw new IllegalArgumentException("Birth date cannot be null");
-        }
-        if (birthDate.isAfter(LocalDate.now())) {
-            throw new IllegalArgumentException("Birth date cannot be in the future");
-        }
-    }
-
-    private void validateIndexNumber(String indexNumber) {
-        if (indexNumber == null || indexNumber.trim().isEmpty()) {
-            throw new IllegalArgumentException("Index number cannot be empty");
-        }
-    }
-
-    private void validateGrades(String grades) {
-        if (grades == null)
-            throw new IllegalArgumentException("Grades cannot be null");
-    }
-
-    public void addGrade(double grade) {
-        if (!VALID_GRADES.contains(grade)) {
-            throw new IllegalArgumentException("Invalid grade: " + grade + ". Allowed: 2.0, 3.0, 3.5, 4.0, 4.5, 5.0");
-        }
-        Double[] newGrades = Arrays.copyOf(this.grades, this.grades.length + 1);
-        newGrades[newGrades.length - 1] = grade;
-        this.grades = newGrades;
-    }
-
-    public String getFirstName() {
-        return firstName;
-    }
-
-    public String getLastName() {
-        return lastName;
-    }
-
-    public LocalDate getBirthDate() {
-        return birthDate;
-    }
-
-    public String getIndexNumber() {
-        return indexNumber;
-    }
-
-    public String getId() {
-        return id;
-    }
-
-    public Double[] getGrades() {
-        return Arrays.copyOf(grades, grades.length);
-    }
-
-    public String getBirthDateFormatted() {
-        return birthDate.format(DATE_FORMAT);
-    }
-
-    public double getAverageGrade() {
-        if (grades == null || grades.length == 0)
-            return 0;
-        double sum = 0.0;
-        int count = 0;
-        for (Double g : grades) {
-            if (g != null) {
-                sum += g;
-                count++;
+        }, task -> {
+            groupsList.setAll(task.getValue());
+            if (task.getMessage() != null && !task.getMessage().isEmpty()) {
+                showError("Journal Error", task.getMessage());
             }
-        }
-        return count == 0 ? 0 : sum / count;
-    }
-
-    private String gradesToCsvField() {
-        if (grades == null || grades.length == 0)
-            return "[]";
-        StringBuilder sb = new StringBuilder();
-        sb.append('[');
-        for (int i = 0; i < grades.length; i++) {
-            if (i > 0)
-                sb.append(',');
-            Double g = grades[i];
-            sb.append(g == null ? "" : g.toString());
-        }
-        sb.append(']');
-        return sb.toString();
-    }
-
-    public String toCsvLine() {
-        // semicolon format: id;index;first;last;date;[grades]
-        String idField = id == null ? "" : id;
-        return String.join(";", idField, indexNumber, firstName, lastName, getBirthDateFormatted(), gradesToCsvField());
-    }
-
-    public static Student fromCsvLine(String line) {
-        if (line == null || line.trim().isEmpty()) {
-            throw new IllegalArgumentException("CSV line is empty");
-        }
-        String s = line.trim();
-        try {
-            if (s.contains(";")) {
-                // Expected semicolon format: id;index;first;last;date;[grades]
-                String[] parts = s.split(";", 6);
-                if (parts.length < 5) {
-                    throw new IllegalArgumentException("Invalid semicolon CSV format: expected at least 5 fields");
-                }
-                LocalDate date = LocalDate.parse(parts[4].trim(), DATE_FORMAT);
-                String gradesField = parts.length >= 6 ? parts[5].trim() : "[]";
-                // parts: 0=id,1=index,2=first,3=last,4=date,5=grades
-                return new Student(parts[0].trim(), parts[2].trim(), parts[3].trim(), date, parts[1].trim(),
-                        gradesField);
+            if (groupsList.isEmpty()) {
+                updateStatus("No groups loaded from project files");
             } else {
-                // Split into at most 5 parts so the grades field (last) may contain commas
-                String[] parts = s.split(",", 5);
-                if (parts.length < 4) {
-                    throw new IllegalArgumentException("Invalid CSV format: expected at least 4 fields");
-                }
-                LocalDate date = LocalDate.parse(parts[2].trim(), DATE_FORMAT);
-                String gradesField = parts.length >= 5 ? parts[4].trim() : "[]";
-                return new Student(parts[0].trim(), parts[1].trim(), date, parts[3].trim(), gradesField);
+                updateStatus("Loaded groups and students from project files (names: " + NamePool.describe() + ")");
             }
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Invalid date format: " + e.getParsedString());
-        }
-    }
-
-    @Override
-    public String toString() {
-        return firstName + " " + lastName + " (" + indexNumber + ")";
-    }
-}
-
-class Group {
-    private String name;
-    private String description;
-    private List<Student> students;
-    private int maxCapacity;
-
-    public Group(String name, String description) {
-        validateName(name);
-        this.name = name;
-        this.description = description == null ? "" : description;
-        this.students = new ArrayList<>();
-        this.maxCapacity = 50;
-    }
-
-    private void validateName(String name) {
-        if (name == null || name.trim().isEmpty()) {
-            throw new IllegalArgumentException("Group name cannot be empty");
-        }
-    }
-
-    public void addStudent(Student student) {
-        if (students.size() >= maxCapacity) {
-            throw new IllegalStateException("Group is at maximum capacity (" + maxCapacity + ")");
-        }
-        if (students.stream().anyMatch(s -> s.getIndexNumber().equals(student.getIndexNumber()))) {
-            throw new IllegalArgumentException(
-                    "Student with index " + student.getIndexNumber() + " already exists in this group");
-        }
-        students.add(student);
-    }
-
-    public void removeStudent(Student student) {
-        if (!students.remove(student)) {
-            throw new IllegalArgumentException("Student not found in this group");
-        }
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public String getDescription() {
-        return description;
-    }
-
-    public List<Student> getStudents() {
-        return new ArrayList<>(students);
-    }
-
-    public void setDescription(String description) {
-        this.description = description == null ? "" : description;
-    }
-
-    @Override
-    public String toString() {
-        return name + " (" + students.size() + " students)";
-    }
-}
-
-class StudentRegistry {
-    private Map<String, Group> groups;
-    private Map<String, Student> studentsById;
-
-    public StudentRegistry() {
-        this.groups = new HashMap<>();
-        this.studentsById = new HashMap<>();
-    }
-
-    public void addGroup(Group group) {
-        if (groups.containsKey(group.getName())) {
-            throw new IllegalArgumentException("Group '" + group.getName() + "' already exists");
-        }
-        groups.put(group.getName(), group);
-    }
-
-    public Group getGroup(String name) {
-        return groups.get(name);
-    }
-
-    public List<Group> getAllGroups() {
-        return new ArrayList<>(groups.values());
-    }
-
-    public void transferStudent(Student student, Group fromGroup, Group toGroup) {
-        fromGroup.removeStudent(student);
-        try {
-            toGroup.addStudent(student);
-        } catch (Exception e) {
-            fromGroup.addStudent(student);
-            throw e;
-        }
+        });
     }
 
-    public void importFromCsv(File file, Group targetGroup) throws IOException {
-        int imported = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty())
-                    continue;
-                try {
-                    Student student = Student.fromCsvLine(line);
-                    // register and add to target group (checks duplicate id)
-                    addStudentToGroup(student, targetGroup);
-                    imported++;
-                } catch (Exception e) {
-                    throw new IOException("Error on line: " + line + " - " + e.getMessage());
-                }
+    /**
+     * Keeps the current event sink but also shows its warnings in the window:
+     * those raised by a file task are listed together once it has finished,
+     * the others, such as a failed background save, appear in the status bar.
+     */
+    private void reportWarningsHere() {
+        DomainEvents.Sink previous = DomainEvents.getSink();
+        DomainEvents.setSink(new DomainEvents.Sink() {
+            @Override
+            public void studentCreated(Student student) {
+                previous.studentCreated(student);
             }
-        }
-    }
 
-    public void loadStudentsFile() throws IOException {
-        File studentsFile = new File("students.csv");
-        if (!studentsFile.exists())
-            throw new IOException("students.csv not found in project root");
-        try (BufferedReader reader = new BufferedReader(new FileReader(studentsFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty())
-                    continue;
-                Student s = Student.fromCsvLine(line);
-                if (s.getId() != null && !s.getId().isEmpty()) {
-                    if (studentsById.containsKey(s.getId())) {
-                        throw new IOException("Duplicate student id in students.csv: " + s.getId());
+            @Override
+            public void warning(String message) {
+                previous.warning(message);
+                Platform.runLater(() -> {
+                    if (currentTask != null) {
+                        fileWarnings.add(message);
+                    } else {
+                        updateStatus("Warning: " + message);
                     }
-                    studentsById.put(s.getId(), s);
-                }
+                });
             }
-        }
-    }
 
-    public void loadGroupsFile() throws IOException {
-        File groupsFile = new File("groups.csv");
-        if (!groupsFile.exists())
-            throw new IOException("groups.csv not found in project root");
-        // clear existing groups before loading
-        this.groups.clear();
-        try (BufferedReader reader = new BufferedReader(new FileReader(groupsFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty())
-                    continue;
-                String s = line.trim();
-                String[] parts = s.split(";", 3);
-                if (parts.length < 2)
-                    continue;
-                String groupName = parts[1].trim();
-                Group g = new Group(groupName, "");
-                this.addGroup(g);
-                if (parts.length == 3) {
-                    String members = parts[2].trim();
-                    if (members.startsWith("[") && members.endsWith("]")) {
-                        String inner = members.substring(1, members.length() - 1).trim();
-                        if (!inner.isEmpty()) {
-                            String[] ids = inner.split(",");
-                            for (String id : ids) {
-                                String tid = id.trim();
-                                Student st = studentsById.get(tid);
-                                if (st != null) {
-                                    try {
-                                        g.addStudent(st);
-                                    } catch (Exception e) {
-                                        System.err.println("Could not add student " + tid + " to group " + groupName
-                                                + ": " + e.getMessage());
-                                    }
-                                } else {
-                                    System.err.println("Unknown student id in groups.csv: " + tid);
-                                }
-                            }
-                        }
-                    }
-                }
+            @Override
+            public void close() {
+                previous.close();
             }
-        }
-    }
-
-    public void saveStudentsFile() throws IOException {
-        File studentsFile = new File("students.csv");
-        try (PrintWriter writer = new PrintWriter(new FileWriter(studentsFile))) {
-            for (Student s : studentsById.values()) {
-                writer.println(s.toCsvLine());
-            }
-        }
-    }
-
-    public void saveGroupsFile() throws IOException {
-        File groupsFile = new File("groups.csv");
-        try (PrintWriter writer = new PrintWriter(new FileWriter(groupsFile))) {
-            int gidx = 1;
-            for (Group g : getAllGroups()) {
-                String gid = "G" + gidx;
-                StringBuilder sb = new StringBuilder();
-                sb.append(gid).append(";").append(g.getName()).append(";");
-                sb.append('[');
-                List<Student> studs = g.getStudents();
-                for (int i = 0; i < studs.size(); i++) {
-                    if (i > 0)
-                        sb.append(',');
-                    String sid = studs.get(i).getId();
-                    sb.append(sid == null ? "" : sid);
-                }
-                sb.append(']');
-                writer.println(sb.toString());
-                gidx++;
-            }
-        }
-    }
-
-    public void addStudentToGroup(Student student, Group group) {
-        if (student.getId() != null && !student.getId().isEmpty()) {
-            if (studentsById.containsKey(student.getId())) {
-                throw new IllegalArgumentException("Student with id " + student.getId() + " already exists");
-            }
-            studentsById.put(student.getId(), student);
-        }
-        group.addStudent(student);
-    }
-
-    public Student getStudentById(String id) {
-        return studentsById.get(id);
+        });
     }
 
-    public void loadFromProjectRoot() {
-        // Load students.csv and groups.csv from current working directory if present
-        File studentsFile = new File("students.csv");
-        File groupsFile = new File("groups.csv");
-        // Clear existing
-        this.groups.clear();
-        this.studentsById.clear();
-
-        if (studentsFile.exists()) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(studentsFile))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (line.trim().isEmpty())
-                        continue;
-                    Student s = Student.fromCsvLine(line);
-                    if (s.getId() != null && !s.getId().isEmpty()) {
-                        if (studentsById.containsKey(s.getId())) {
-                            System.err.println("Duplicate student id in students.csv: " + s.getId() + " — skipping");
-                            continue;
-                        }
-                        studentsById.put(s.getId(), s);
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error loading students.csv: " + e.getMessage());
-            }
+    private void showFileWarnings() {
+        if (fileWarnings.isEmpty())
+            return;
+        StringBuilder text = new StringBuilder();
+        for (String warning : fileWarnings.subList(0, Math.min(fileWarnings.size(), WARNINGS_SHOWN))) {
+            text.append(warning).append('\n');
         }
-
-        if (groupsFile.exists()) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(groupsFile))) {
-                String line;
-                int gid = 1;
-                while ((line = reader.readLine()) != null) {
-                    if (line.trim().isEmpty())
-                        continue;
-                    String s = line.trim();
-                    String[] parts = s.split(";", 3);
-                    if (parts.length < 2)
-                        continue;
-                    String groupName = parts[1].trim();
-                    Group g = new Group(groupName, "");
-                    this.addGroup(g);
-                    if (parts.length == 3) {
-                        String members = parts[2].trim();
-                        if (members.startsWith("[") && members.endsWith("]")) {
-                            String inner = members.substring(1, members.length() - 1).trim();
-                            if (!inner.isEmpty()) {
-                                String[] ids = inner.split(",");
-                                for (String id : ids) {
-                                    String tid = id.trim();
-                                    Student st = studentsById.get(tid);
-                                    if (st != null) {
-                                        try {
-                                            g.addStudent(st);
-                                        } catch (Exception e) {
-                                            System.err.println("Could not add student " + tid + " to group " + groupName
-                                                    + ": " + e.getMessage());
-                                        }
-                                    } else {
-                                        System.err.println("Unknown student id in groups.csv: " + tid);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    gid++;
-                }
-            } catch (Exception e) {
-                System.err.println("Error loading groups.csv: " + e.getMessage());
-            }
+        if (fileWarnings.size() > WARNINGS_SHOWN) {
+            text.append("... and ").append(fileWarnings.size() - WARNINGS_SHOWN).append(" more");
         }
+        fileWarnings.clear();
+        showWarning("Project Files", text.toString().strip());
     }
 
-    public void saveProjectCsvs() throws IOException {
-        // write students.csv and groups.csv in current working directory
-        File studentsFile = new File("students.csv");
-        try (PrintWriter writer = new PrintWriter(new FileWriter(studentsFile))) {
-            for (Student s : studentsById.values()) {
-                writer.println(s.toCsvLine());
-            }
-        }
-
-        File groupsFile = new File("groups.csv");
-        try (PrintWriter writer = new PrintWriter(new FileWriter(groupsFile))) {
-            int gidx = 1;
-            for (Group g : getAllGroups()) {
-                String gid = "G" + gidx;
-                StringBuilder sb = new StringBuilder();
-                sb.append(gid).append(";").append(g.getName()).append(";");
-                sb.append('[');
-                List<Student> studs = g.getStudents();
-                for (int i = 0; i < studs.size(); i++) {
-                    if (i > 0)
-                        sb.append(',');
-                    String sid = studs.get(i).getId();
-                    sb.append(sid == null ? "" : sid);
-                }
-                sb.append(']');
-                writer.println(sb.toString());
-                gidx++;
-            }
+    @Override
+    public void stop() {
+        // let a running file task reach a safe point before the journal is closed
+        if (currentTask != null) {
+            currentTask.cancel(false);
         }
-    }
-
-    public void exportToCsv(File file, Group group) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-            for (Student student : group.getStudents()) {
-                writer.println(student.toCsvLine());
+        fileExecutor.shutdown();
+        try {
+            if (!fileExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("File operation still running at exit");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-    }
-}
-
-// ==================== GUI APPLICATION ====================
-
-public class StudentManagerFx extends Application {
-    private StudentRegistry registry;
-    private ListView<Group> groupsListView;
-    private TableView<Student> studentsTable;
-    private ObservableList<Group> groupsList;
-    private ObservableList<Student> studentsList;
-    private Label statusLabel;
-    private Group currentGroup;
-
-    @Override
-    public void start(Stage stage) {
-        registry = new StudentRegistry();
-        groupsList = FXCollections.observableArrayList();
-        studentsList = FXCollections.observableArrayList();
-
-        BorderPane root = new BorderPane();
-        root.setTop(createMenuBar(stage));
-        root.setLeft(createGroupsPanel());
-        root.setCenter(createStudentsPanel());
-        root.setRight(createActionsPanel());
-        root.setBottom(createStatusBar());
-
-        Scene scene = new Scene(root, 1100, 650);
-        stage.setScene(scene);
-        stage.setTitle("Student & Group Manager — JavaFX");
-        stage.show();
-
-        // Try to load students.csv and groups.csv from project root
-        registry.loadFromProjectRoot();
-        groupsList.addAll(registry.getAllGroups());
-        if (groupsList.isEmpty()) {
-            updateStatus("No groups loaded from project files");
-        } else {
-            updateStatus("Loaded groups and students from project files");
+        try {
+            registry.closeJournal();
+        } catch (IOException e) {
+            System.err.println("Could not write the final snapshot: " + e.getMessage());
         }
+        DomainEvents.getSink().close();
     }
 
     private MenuBar createMenuBar(Stage stage) {
         MenuBar menuBar = new MenuBar();
 
         Menu fileMenu = new Menu("File");
+        MenuItem importCsv = new MenuItem("Import CSV into Group...");
+        importCsv.setOnAction(e -> handleLoadCsv(stage));
+        MenuItem exportCsv = new MenuItem("Export Group to CSV...");
+        exportCsv.setOnAction(e -> handleSaveCsv(stage));
         MenuItem exit = new MenuItem("Exit");
         exit.setOnAction(e -> stage.close());
-        fileMenu.getItems().addAll(exit);
+        fileMenu.getItems().addAll(importCsv, exportCsv, new SeparatorMenuItem(), exit);
         menuBar.getMenus().add(fileMenu);
 
         return menuBar;
@@ -704,33 +241,63 @@ public class StudentManagerFx extends Application {
         Label title = new Label("Students");
         title.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
 
-        studentsTable = new TableView<>(studentsList);
+        // Rows come from a live view of the selected group; cell values are formatted once per student
+        studentsTable = new TableView<>();
 
         TableColumn<Student, String> firstNameCol = new TableColumn<>("First Name");
-        firstNameCol.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getFirstName()));
+        firstNameCol.setCellValueFactory(
+                cellData -> studentCells.get(cellData.getValue(), StudentCellCache.Column.FIRST_NAME));
         firstNameCol.setPrefWidth(120);
 
         TableColumn<Student, String> lastNameCol = new TableColumn<>("Last Name");
-        lastNameCol.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getLastName()));
+        lastNameCol.setCellValueFactory(
+                cellData -> studentCells.get(cellData.getValue(), StudentCellCache.Column.LAST_NAME));
         lastNameCol.setPrefWidth(120);
 
         TableColumn<Student, String> birthDateCol = new TableColumn<>("Birth Date");
-        birthDateCol
-                .setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getBirthDateFormatted()));
+        birthDateCol.setCellValueFactory(
+                cellData -> studentCells.get(cellData.getValue(), StudentCellCache.Column.BIRTH_DATE));
         birthDateCol.setPrefWidth(100);
 
         TableColumn<Student, String> indexCol = new TableColumn<>("Index Number");
-        indexCol.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getIndexNumber()));
+        indexCol.setCellValueFactory(
+                cellData -> studentCells.get(cellData.getValue(), StudentCellCache.Column.INDEX_NUMBER));
         indexCol.setPrefWidth(120);
 
         TableColumn<Student, String> avgGradeCol = new TableColumn<>("Avg Grade");
         avgGradeCol.setCellValueFactory(
-                cellData -> new SimpleStringProperty(String.format("%.2f", cellData.getValue().getAverageGrade())));
+                cellData -> studentCells.get(cellData.getValue(), StudentCellCache.Column.AVERAGE_GRADE));
         avgGradeCol.setPrefWidth(80);
 
         studentsTable.getColumns().addAll(firstNameCol, lastNameCol, birthDateCol, indexCol, avgGradeCol);
 
-        panel.getChildren().addAll(title, studentsTable);
+        // Search box: results come from the registry's sorted index, so a keystroke does not scan any group
+        searchField = new TextField();
+        searchField.setPromptText("Search by last name, first name or index number");
+
+        ListView<Student> searchResults = new ListView<>(searchResultsList);
+        searchResults.setPrefHeight(150);
+        searchResults.setVisible(false);
+        searchResults.setManaged(false);
+
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
+            boolean searching = newVal != null && !newVal.isBlank();
+            searchResultsList.setAll(searching ? registry.searchStudents(newVal, SEARCH_LIMIT) : List.of());
+            searchResults.setVisible(searching);
+            searchResults.setManaged(searching);
+            if (searching) {
+                updateStatus(searchResultsList.size() >= SEARCH_LIMIT
+                        ? "Showing the first " + SEARCH_LIMIT + " matches"
+                        : searchResultsList.size() + " matching students");
+            }
+        });
+        searchResults.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null) {
+                showSearchResult(newVal);
+            }
+        });
+
+        panel.getChildren().addAll(title, searchField, searchResults, studentsTable);
         VBox.setVgrow(studentsTable, Priority.ALWAYS);
 
         return panel;
@@ -813,6 +380,12 @@ public class StudentManagerFx extends Application {
         removeStudentBtn.setMaxWidth(Double.MAX_VALUE);
         removeStudentBtn.setOnAction(e -> handleRemoveStudent());
 
+        Separator sep3 = new Separator();
+
+        Button statisticsBtn = new Button("Grade Statistics");
+        statisticsBtn.setMaxWidth(Double.MAX_VALUE);
+        statisticsBtn.setOnAction(e -> handleShowStatistics());
+
         panel.getChildren().addAll(
                 title,
                 addStudentLabel, firstNameField, lastNameField, birthDateField, indexField, addStudentBtn,
@@ -821,18 +394,38 @@ public class StudentManagerFx extends Application {
                 sep0,
                 transferLabel, targetGroupCombo, transferBtn,
                 sep2,
-                removeStudentBtn);
+                removeStudentBtn,
+                sep3,
+                statisticsBtn);
 
         return panel;
     }
 
     private HBox createStatusBar() {
-        HBox statusBar = new HBox();
+        HBox statusBar = new HBox(10);
         statusBar.setPadding(new Insets(5, 10, 5, 10));
         statusBar.setStyle("-fx-background-color: #e0e0e0;");
+        statusBar.setAlignment(Pos.CENTER_LEFT);
 
         statusLabel = new Label("Ready");
-        statusBar.getChildren().add(statusLabel);
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+
+        progressBar = new ProgressBar();
+        progressBar.setPrefWidth(200);
+
+        cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(e -> {
+            if (currentTask != null) {
+                // no interrupt: that would close the journal's file channel mid-write
+                currentTask.cancel(false);
+                cancelButton.setDisable(true);
+                updateStatus("Cancelling...");
+            }
+        });
+
+        showProgress(false);
+        statusBar.getChildren().addAll(statusLabel, spacer, progressBar, cancelButton);
 
         return statusBar;
     }
@@ -876,7 +469,7 @@ public class StudentManagerFx extends Application {
         dialog.setContentText("Description:");
 
         dialog.showAndWait().ifPresent(description -> {
-            selected.setDescription(description);
+            registry.setGroupDescription(selected, description);
             updateStatus("Description updated for group '" + selected.getName() + "'");
             groupsListView.refresh();
         });
@@ -889,10 +482,9 @@ public class StudentManagerFx extends Application {
         }
 
         try {
-            LocalDate birthDate = LocalDate.parse(birthDateStr, DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+            LocalDate birthDate = DateCodec.parse(birthDateStr);
             Student student = new Student(firstName, lastName, birthDate, indexNumber);
-            currentGroup.addStudent(student);
-            studentsList.add(student);
+            registry.addStudentToGroup(student, currentGroup);
             updateStatus("Student added: " + student);
             showInfo("Success", "Student added successfully");
         } catch (DateTimeParseException e) {
@@ -919,7 +511,6 @@ public class StudentManagerFx extends Application {
 
         try {
             registry.transferStudent(selected, currentGroup, targetGroup);
-            studentsList.remove(selected);
             updateStatus("Student transferred: " + selected + " → " + targetGroup.getName());
             showInfo("Success", "Student transferred successfully");
         } catch (Exception e) {
@@ -942,8 +533,7 @@ public class StudentManagerFx extends Application {
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 try {
-                    currentGroup.removeStudent(selected);
-                    studentsList.remove(selected);
+                    registry.removeStudentFromGroup(selected, currentGroup);
                     updateStatus("Student removed: " + selected);
                 } catch (Exception e) {
                     showError("Error", e.getMessage());
@@ -952,6 +542,38 @@ public class StudentManagerFx extends Application {
         });
     }
 
+    private void handleShowStatistics() {
+        List<Group> groups = registry.getAllGroups();
+        if (groups.isEmpty()) {
+            showWarning("No Groups", "There are no groups to summarize");
+            return;
+        }
+
+        GroupStatistics.Report report = GroupStatistics.compute(groups, TOP_STUDENTS);
+        StringBuilder text = new StringBuilder();
+        for (GroupStatistics stats : report.getGroups()) {
+            appendStatistics(text, stats);
+            text.append('\n');
+        }
+        appendStatistics(text, report.getOverall());
+        updateStatus("Grade statistics for " + groups.size() + " groups");
+        showInfo("Grade Statistics", text.toString());
+    }
+
+    private static void appendStatistics(StringBuilder text, GroupStatistics stats) {
+        text.append(String.format("%s: %d students, %d graded, %d grades%n",
+                stats.getName(), stats.getStudentCount(), stats.getGradedCount(), stats.getGradeCount()));
+        if (stats.getGradeCount() == 0)
+            return;
+        text.append(String.format("  mean %.2f, median %.2f, failing %d (average below %.1f)%n",
+                stats.getMean().getAsDouble(), stats.getMedian().getAsDouble(), stats.getFailingCount(),
+                GroupStatistics.PASSING_AVERAGE));
+        text.append("  grades: ").append(stats.formatHistogram()).append('\n');
+        for (Student s : stats.getTopStudents()) {
+            text.append(String.format("  %s %.2f%n", s, s.getAverageGrade()));
+        }
+    }
+
     private void handleLoadCsv(Stage stage) {
         if (currentGroup == null) {
             showWarning("No Group Selected", "Please select a group to import students into");
@@ -965,59 +587,72 @@ public class StudentManagerFx extends Application {
 
         File file = fileChooser.showOpenDialog(stage);
         if (file != null) {
-            try {
-                int beforeCount = currentGroup.getStudents().size();
-                registry.importFromCsv(file, currentGroup);
-                loadStudentsForGroup(currentGroup);
-                int imported = currentGroup.getStudents().size() - beforeCount;
-                updateStatus("Imported " + imported + " students from " + file.getName());
-                showInfo("Import Success", "Imported " + imported + " students successfully");
-            } catch (IOException e) {
-                showError("Import Error", e.getMessage());
-            }
+            Group target = currentGroup;
+            runInBackground("Importing " + file.getName(), "Import Error", new FileTask<Integer>() {
+                @Override
+                protected Integer call() throws Exception {
+                    // the table's view of the group publishes the new rows as they are added
+                    return registry.importFromCsv(file, target, this);
+                }
+            }, task -> {
+                updateStatus("Imported " + task.getValue() + " students from " + file.getName());
+                showInfo("Import Success", "Imported " + task.getValue() + " students successfully");
+            });
         }
     }
 
     private void handleLoadStudents() {
-        try {
-            registry.loadStudentsFile();
+        runInBackground("Loading students.csv", "Load Error", new FileTask<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                registry.loadStudentsFile(this);
+                return null;
+            }
+        }, task -> {
             updateStatus("Loaded students.csv from project root");
             showInfo("Load Success", "Loaded students.csv successfully");
-        } catch (Exception e) {
-            showError("Load Error", e.getMessage());
-        }
+        });
     }
 
     private void handleLoadGroups() {
-        try {
-            registry.loadGroupsFile();
-            groupsList.clear();
-            groupsList.addAll(registry.getAllGroups());
+        runInBackground("Loading groups.csv", "Load Error", new FileTask<List<Group>>() {
+            @Override
+            protected List<Group> call() throws Exception {
+                registry.loadGroupsFile(this);
+                return registry.getAllGroups();
+            }
+        }, task -> {
+            groupsList.setAll(task.getValue());
+            showGroup(null);
             updateStatus("Loaded groups.csv from project root");
             showInfo("Load Success", "Loaded groups.csv successfully");
-        } catch (Exception e) {
-            showError("Load Error", e.getMessage());
-        }
+        });
     }
 
     private void handleSaveStudents() {
-        try {
-            registry.saveStudentsFile();
-            updateStatus("Saved students.csv to project root");
-            showInfo("Save Success", "students.csv saved successfully");
-        } catch (Exception e) {
-            showError("Save Error", e.getMessage());
-        }
+        runInBackground("Saving students", "Save Error", new FileTask<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                registry.saveStudentsFile(this);
+                return null;
+            }
+        }, task -> {
+            updateStatus("Saved students to project root");
+            showInfo("Save Success", "Students saved successfully");
+        });
     }
 
     private void handleSaveGroups() {
-        try {
-            registry.saveGroupsFile();
-            updateStatus("Saved groups.csv to project root");
-            showInfo("Save Success", "groups.csv saved successfully");
-        } catch (Exception e) {
-            showError("Save Error", e.getMessage());
-        }
+        runInBackground("Saving groups", "Save Error", new FileTask<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                registry.saveGroupsFile(this);
+                return null;
+            }
+        }, task -> {
+            updateStatus("Saved groups to project root");
+            showInfo("Save Success", "Groups saved successfully");
+        });
     }
 
     private void handleSaveCsv(Stage stage) {
@@ -1034,21 +669,117 @@ public class StudentManagerFx extends Application {
 
         File file = fileChooser.showSaveDialog(stage);
         if (file != null) {
-            try {
-                registry.exportToCsv(file, currentGroup);
-                updateStatus("Exported " + currentGroup.getStudents().size() + " students to " + file.getName());
+            Group group = currentGroup;
+            runInBackground("Exporting " + group.getName(), "Export Error", new FileTask<Integer>() {
+                @Override
+                protected Integer call() throws Exception {
+                    registry.exportToCsv(file, group, this);
+                    return group.size();
+                }
+            }, task -> {
+                updateStatus("Exported " + task.getValue() + " students to " + file.getName());
                 showInfo("Export Success", "Students exported successfully");
-            } catch (IOException e) {
-                showError("Export Error", e.getMessage());
-            }
+            });
+        }
+    }
+
+    // ===== BACKGROUND FILE TASKS =====
+
+    /**
+     * Runs {@code task} on the file thread with the progress bar and Cancel
+     * button showing, and calls {@code onSuccess} on the FX thread once it has
+     * succeeded. Cancellation is cooperative, so the panels are only enabled
+     * again when the task's thread has actually returned.
+     */
+    private <T> void runInBackground(String description, String errorTitle, Task<T> task,
+            Consumer<Task<T>> onSuccess) {
+        if (currentTask != null) {
+            showWarning("Busy", "Please wait for the current file operation to finish");
+            return;
+        }
+        currentTask = task;
+        groupsPanel.setDisable(true);
+        actionsPanel.setDisable(true);
+        searchField.setDisable(true);
+        progressBar.progressProperty().bind(task.progressProperty());
+        showProgress(true);
+        updateStatus(description + "...");
+
+        fileExecutor.execute(() -> {
+            task.run();
+            // queued after the task's own state updates, so its final state is visible here
+            Platform.runLater(() -> {
+                currentTask = null;
+                progressBar.progressProperty().unbind();
+                showProgress(false);
+                groupsPanel.setDisable(false);
+                actionsPanel.setDisable(false);
+                searchField.setDisable(false);
+                switch (task.getState()) {
+                    case SUCCEEDED -> onSuccess.accept(task);
+                    case CANCELLED -> {
+                        // the task may have changed the registry before it stopped
+                        groupsList.setAll(registry.getAllGroups());
+                        updateStatus(description + " cancelled");
+                    }
+                    default -> {
+                        groupsList.setAll(registry.getAllGroups());
+                        updateStatus(description + " failed");
+                        Throwable error = task.getException();
+                        showError(errorTitle, error == null ? "Unknown error" : error.getMessage());
+                    }
+                }
+                // the task's warnings were queued before this, so they are all in
+                showFileWarnings();
+            });
+        });
+    }
+
+    private void showProgress(boolean visible) {
+        progressBar.setVisible(visible);
+        progressBar.setManaged(visible);
+        cancelButton.setVisible(visible);
+        cancelButton.setManaged(visible);
+        cancelButton.setDisable(false);
+    }
+
+    /** A task that reports to the registry's {@link Progress}; updateProgress coalesces UI updates itself. */
+    private abstract static class FileTask<V> extends Task<V> implements Progress {
+        @Override
+        public void update(long done, long total) {
+            updateProgress(done, total);
         }
     }
 
     private void loadStudentsForGroup(Group group) {
+        showGroup(group);
+        updateStatus("Loaded group: " + group.getName() + " (" + group.size() + " students)");
+    }
+
+    // Selects the student's group and then the student in the table
+    private void showSearchResult(Student student) {
+        Group group = registry.findGroupOf(student);
+        if (group == null) {
+            updateStatus(student + " is not in any group");
+            return;
+        }
+        groupsListView.getSelectionModel().select(group);
+        if (currentGroup != group) {
+            loadStudentsForGroup(group);
+        }
+        studentsTable.getSelectionModel().select(student);
+        studentsTable.scrollTo(student);
+        updateStatus("Found " + student + " in group " + group.getName());
+    }
+
+    // Swapping in a view of the group is constant time, whatever its size
+    private void showGroup(Group group) {
+        if (studentsView != null) {
+            studentsView.dispose();
+        }
         currentGroup = group;
-        studentsList.clear();
-        studentsList.addAll(group.getStudents());
-        updateStatus("Loaded group: " + group.getName() + " (" + group.getStudents().size() + " students)");
+        studentsView = group == null ? null : new GroupStudentsList(group);
+        studentsTable.setItems(studentsView == null ? FXCollections.observableArrayList() : studentsView);
     }
 
     private void updateStatus(String message) {
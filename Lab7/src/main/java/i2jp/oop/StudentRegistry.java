@@ -0,0 +1,951 @@
+package i2jp.oop;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+class StudentRegistry {
+    private static final int COMPACT_AFTER_RECORDS = 1000;
+    private static final String SNAPSHOT_FILE = "registry.snapshot";
+    private static final int PROGRESS_ROWS = 4096;
+    // An incremental save appends to the delta until it holds this many records, or a tenth of
+    // the students if that is more; the next save then rewrites everything and starts over
+    private static final int MIN_DELTA_RECORDS = 10_000;
+
+    private final GroupRepository groups;
+    private final StudentRepository studentsById;
+    // Secondary indexes: the first three follow registration, groupOf follows group membership
+    private final StudentSearchIndex searchIndex = new StudentSearchIndex();
+    private final Map<String, Student> studentsByIndex = new HashMap<>();
+    private final Map<String, List<Student>> studentsByLastName = new HashMap<>();
+    private final Map<Student, Group> groupOf = new HashMap<>();
+    private final Group.Listener membership = new Group.Listener() {
+        @Override
+        public void studentAdded(Group group, Student student, int index) {
+            groupOf.put(student, group);
+            markDirty(group);
+        }
+
+        @Override
+        public void studentRemoved(Group group, Student student, int index) {
+            groupOf.remove(student, group);
+            markDirty(group);
+        }
+
+        @Override
+        public void gradeAdded(Group group, Student student) {
+            markDirty(student);
+        }
+    };
+    private long nextId = 1;
+
+    // Every write of the project files runs on this thread, so no two ever write the same file
+    // at once. A save is prepared on the thread that owns the registry and only once the save
+    // before it has finished, so it knows whether that one failed.
+    private final ExecutorService saver = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "registry-saver");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> pendingSave;
+
+    // Guards the fields below: the saver thread resets baseDir when a save fails
+    private final Object saveLock = new Object();
+    // Changed since last saved, in full or to the delta; see prepareSave
+    private final Set<Student> dirtyStudents = new LinkedHashSet<>();
+    private final Set<Group> dirtyGroups = new LinkedHashSet<>();
+    // The directory whose CSV files plus delta hold every student and group not marked dirty,
+    // or null if there is none and the next save must be a full one
+    private Path baseDir;
+    private int deltaRecords;
+
+    // Set by openJournal: mutations are then logged and compacted into the CSVs in the background
+    private MutationJournal journal;
+    private Path dataDir;
+
+    public StudentRegistry() {
+        this(new InMemoryStudentRepository(), new InMemoryGroupRepository());
+    }
+
+    /** A registry over the given storage; students and groups already in it are indexed. */
+    StudentRegistry(StudentRepository students, GroupRepository groups) {
+        this.studentsById = students;
+        this.groups = groups;
+        for (Student s : students) {
+            index(s);
+        }
+        for (Group g : groups) {
+            watch(g);
+        }
+    }
+
+    public void addGroup(Group group) {
+        if (groups.contains(group.getName())) {
+            throw new IllegalArgumentException("Group '" + group.getName() + "' already exists");
+        }
+        record(out -> out.rawField("G").field(group.getName()).field(group.getDescription()));
+        attachGroup(group);
+        markDirty(group);
+    }
+
+    public Group getGroup(String name) {
+        return groups.get(name);
+    }
+
+    public List<Group> getAllGroups() {
+        return groups.streamAll().collect(Collectors.toList());
+    }
+
+    public void setGroupDescription(Group group, String description) {
+        String value = description == null ? "" : description;
+        record(out -> out.rawField("G").field(group.getName()).field(value));
+        group.setDescription(value);
+        markDirty(group);
+    }
+
+    public void transferStudent(Student student, Group fromGroup, Group toGroup) {
+        if (!fromGroup.contains(student)) {
+            throw new IllegalArgumentException("Student not found in this group");
+        }
+        toGroup.checkCanAdd(student);
+        record(out -> out.rawField("T").field(student.getId()).field(fromGroup.getName()).field(toGroup.getName()));
+        fromGroup.removeStudent(student);
+        toGroup.addStudent(student);
+    }
+
+    public void removeStudentFromGroup(Student student, Group group) {
+        if (!group.contains(student)) {
+            throw new IllegalArgumentException("Student not found in this group");
+        }
+        record(out -> out.rawField("R").field(group.getName()).field(student.getId()));
+        group.removeStudent(student);
+    }
+
+    public int importFromCsv(File file, Group targetGroup) throws IOException {
+        return importFromCsv(file, targetGroup, Progress.NONE);
+    }
+
+    /**
+     * Imports every student in the file into the group, reporting progress in
+     * bytes read. Students imported before an error or a cancellation stay
+     * imported.
+     */
+    public int importFromCsv(File file, Group targetGroup, Progress progress) throws IOException {
+        int[] count = new int[1];
+        try {
+            new MappedStudentReader().read(file, student -> {
+                // register and add to target group (checks duplicate id)
+                addStudentToGroup(student, targetGroup);
+                count[0]++;
+            }, progress);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("Error after " + count[0] + " students in " + file.getName() + ": "
+                    + e.getMessage(), e);
+        }
+        return count[0];
+    }
+
+    public void loadStudentsFile() throws IOException {
+        loadStudentsFile(Progress.NONE);
+    }
+
+    /** Reads students.csv and registers its students; on error or cancellation nothing is registered. */
+    public void loadStudentsFile(Progress progress) throws IOException {
+        File studentsFile = new File("students.csv");
+        if (!studentsFile.exists())
+            throw new IOException("students.csv not found in project root");
+        awaitSave();
+        List<Student> loaded = new ArrayList<>();
+        readStudents(studentsFile, false, progress, loaded);
+        registerAll(loaded);
+        // students.csv alone misses what was saved incrementally since
+        countDeltaRecords(DeltaLog.replay(Path.of(""), "S", this::applyDeltaRecord));
+    }
+
+    /**
+     * Reads the students with an id from a students file into {@code into}, in
+     * file order. An id already registered or seen earlier in the file fails
+     * the read, or with {@code skipDuplicates} is reported and skipped. What was
+     * read before a failure stays in {@code into}.
+     */
+    private void readStudents(File file, boolean skipDuplicates, Progress progress, List<Student> into)
+            throws IOException {
+        Set<String> seen = new HashSet<>();
+        new MappedStudentReader().read(file, s -> {
+            if (s.getId() == null || s.getId().isEmpty())
+                return;
+            if (studentsById.contains(s.getId()) || !seen.add(s.getId())) {
+                if (!skipDuplicates)
+                    throw new IOException("Duplicate student id in " + file.getName() + ": " + s.getId());
+                DomainEvents.warning("Duplicate student id in " + file.getName() + ": " + s.getId() + " — skipping");
+                return;
+            }
+            into.add(s);
+        }, progress);
+    }
+
+    public void loadGroupsFile() throws IOException {
+        loadGroupsFile(Progress.NONE);
+    }
+
+    /** Replaces all groups with those in groups.csv; on error or cancellation the old groups stay. */
+    public void loadGroupsFile(Progress progress) throws IOException {
+        File groupsFile = new File("groups.csv");
+        if (!groupsFile.exists())
+            throw new IOException("groups.csv not found in project root");
+        // bring groups.csv up to date with the journal, so reloading it loses nothing
+        checkpoint();
+        Map<String, Group> loaded = new HashMap<>();
+        CsvTokenizer fields = new CsvTokenizer(";");
+        CsvTokenizer ids = new CsvTokenizer(",");
+        long total = groupsFile.length();
+        long read = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(groupsFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                read += line.length() + 1;
+                progress.step(read, total);
+                if (line.trim().isEmpty())
+                    continue;
+                loadGroupLine(line.trim(), fields, ids, loaded);
+            }
+        }
+        replaceGroups(loaded);
+        // groups.csv alone misses what was saved incrementally since
+        countDeltaRecords(DeltaLog.replay(Path.of(""), "M", this::applyDeltaRecord));
+    }
+
+    // groups.csv line: gid;name;[id1,id2,...][;description]
+    private void loadGroupLine(String line, CsvTokenizer fields, CsvTokenizer ids, Map<String, Group> groups) {
+        int n = fields.tokenize(line, 4);
+        if (n < 2)
+            return;
+        String groupName = fields.trimmedField(1);
+        if (groups.containsKey(groupName)) {
+            throw new IllegalArgumentException("Group '" + groupName + "' already exists");
+        }
+        Group g = new Group(groupName, n >= 4 ? fields.trimmedField(3) : "");
+        groups.put(groupName, g);
+        if (n < 3)
+            return;
+        String members = fields.trimmedField(2);
+        if (!members.startsWith("[") || !members.endsWith("]"))
+            return;
+        int count = ids.tokenizeList(fields, 2);
+        List<String> memberIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            memberIds.add(ids.trimmedField(i));
+        }
+        Map<String, Student> found = studentsById.findByIds(memberIds);
+        for (String tid : memberIds) {
+            Student st = found.get(tid);
+            if (st != null) {
+                try {
+                    g.addStudent(st);
+                } catch (Exception e) {
+                    DomainEvents.warning("Could not add student " + tid + " to group " + groupName
+                            + ": " + e.getMessage());
+                }
+            } else {
+                DomainEvents.warning("Unknown student id in groups.csv: " + tid);
+            }
+        }
+    }
+
+    public void saveStudentsFile() throws IOException {
+        saveStudentsFile(Progress.NONE);
+    }
+
+    /**
+     * Saves the students changed since the last save, to the delta if there is
+     * room, or otherwise by rewriting every project file as
+     * {@link #saveProjectCsvs()} does. On error or cancellation the old files
+     * stay as they were.
+     */
+    public void saveStudentsFile(Progress progress) throws IOException {
+        awaitSave();
+        runOnSaver(prepareSave(projectDir(), Scope.STUDENTS, progress));
+    }
+
+    public void saveGroupsFile() throws IOException {
+        saveGroupsFile(Progress.NONE);
+    }
+
+    /** Like {@link #saveStudentsFile(Progress)}, for the groups changed since the last save. */
+    public void saveGroupsFile(Progress progress) throws IOException {
+        awaitSave();
+        runOnSaver(prepareSave(projectDir(), Scope.GROUPS, progress));
+    }
+
+    /**
+     * Registers the student and adds it to the group. A student without an id
+     * is given the next free seven-digit id, so it is saved with the others.
+     */
+    public void addStudentToGroup(Student student, Group group) {
+        if (student.getId() != null && !student.getId().isEmpty()) {
+            if (studentsById.contains(student.getId())) {
+                throw new IllegalArgumentException("Student with id " + student.getId() + " already exists");
+            }
+        }
+        group.checkCanAdd(student);
+        if (student.getId() == null || student.getId().isEmpty()) {
+            student.assignId(nextFreeId());
+        }
+        record(out -> {
+            out.rawField("A").field(group.getName());
+            student.writeCsvFields(out);
+        });
+        register(student);
+        group.addStudent(student);
+    }
+
+    // every student in studentsById is also in the secondary indexes; a student registered
+    // one at a time is new, a batch comes from a file
+    private void register(Student student) {
+        studentsById.put(student);
+        index(student);
+        markDirty(student);
+    }
+
+    private void registerAll(List<Student> batch) {
+        studentsById.putAll(batch);
+        batch.forEach(this::index);
+    }
+
+    private void index(Student student) {
+        searchIndex.add(student);
+        studentsByIndex.putIfAbsent(student.getIndexNumber(), student);
+        studentsByLastName.computeIfAbsent(student.getLastName(), k -> new ArrayList<>(1)).add(student);
+    }
+
+    private void clearStudents() {
+        studentsById.clear();
+        searchIndex.clear();
+        studentsByIndex.clear();
+        studentsByLastName.clear();
+        synchronized (saveLock) {
+            dirtyStudents.clear();
+        }
+    }
+
+    // A live group reports membership changes, so groupOf stays current through every path
+    // that adds, transfers or removes students, journal replay included
+    private void attachGroup(Group group) {
+        groups.put(group);
+        watch(group);
+    }
+
+    private void watch(Group group) {
+        for (int i = 0; i < group.size(); i++) {
+            groupOf.put(group.getStudent(i), group);
+        }
+        group.addListener(membership);
+    }
+
+    private void replaceGroups(Map<String, Group> replacement) {
+        for (Group g : groups) {
+            g.removeListener(membership);
+        }
+        groups.clear();
+        groupOf.clear();
+        synchronized (saveLock) {
+            dirtyGroups.clear();
+        }
+        replacement.values().forEach(this::attachGroup);
+    }
+
+    private String nextFreeId() {
+        String id;
+        do {
+            id = String.format("%07d", nextId++);
+        } while (studentsById.contains(id));
+        return id;
+    }
+
+    public Student getStudentById(String id) {
+        return studentsById.get(id);
+    }
+
+    /**
+     * Registered students whose last name, first name or index number starts
+     * with the query (each word of it, ignoring case); at most {@code limit}.
+     */
+    public List<Student> searchStudents(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /** The group the student is in, or {@code null}. */
+    public Group findGroupOf(Student student) {
+        return groupOf.get(student);
+    }
+
+    /** The registered student with this index number, or {@code null}. */
+    public Student getStudentByIndexNumber(String indexNumber) {
+        return studentsByIndex.get(indexNumber);
+    }
+
+    /** Registered students with exactly this last name. */
+    public List<Student> findStudentsByLastName(String lastName) {
+        return List.copyOf(studentsByLastName.getOrDefault(lastName, List.of()));
+    }
+
+    public void loadFromProjectRoot() {
+        // Load students.csv and groups.csv from current working directory if present
+        File studentsFile = new File("students.csv");
+        File groupsFile = new File("groups.csv");
+        Path dir = projectDir();
+        try {
+            awaitSave();
+        } catch (IOException e) {
+            DomainEvents.warning("Last save failed: " + e.getMessage());
+        }
+        // Clear existing
+        replaceGroups(Map.of());
+        clearStudents();
+        // what is loaded below then matches the files: nothing is dirty
+        synchronized (saveLock) {
+            baseDir = dir;
+            deltaRecords = 0;
+        }
+
+        if (snapshotIsCurrent(Path.of(SNAPSHOT_FILE), List.of(studentsFile.toPath(), groupsFile.toPath()))) {
+            try {
+                loadSnapshot(RegistrySnapshot.read(Path.of(SNAPSHOT_FILE)));
+                replayDelta(dir, "S");
+                replayDelta(dir, "M");
+                markClean();
+                return;
+            } catch (IOException | RuntimeException e) {
+                DomainEvents.warning("Error loading " + SNAPSHOT_FILE + ", reading the CSV files instead: "
+                        + e.getMessage());
+                replaceGroups(Map.of());
+                clearStudents();
+            }
+        }
+
+        if (studentsFile.exists()) {
+            List<Student> loaded = new ArrayList<>();
+            try {
+                readStudents(studentsFile, true, Progress.NONE, loaded);
+            } catch (Exception e) {
+                DomainEvents.warning("Error loading students.csv: " + e.getMessage());
+            }
+            // keep the students read before an error
+            registerAll(loaded);
+        }
+        replayDelta(dir, "S");
+
+        if (groupsFile.exists()) {
+            CsvTokenizer fields = new CsvTokenizer(";");
+            CsvTokenizer ids = new CsvTokenizer(",");
+            Map<String, Group> loaded = new HashMap<>();
+            try (BufferedReader reader = new BufferedReader(new FileReader(groupsFile))) {
+                String line;
+                int gid = 1;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty())
+                        continue;
+                    loadGroupLine(line.trim(), fields, ids, loaded);
+                    gid++;
+                }
+            } catch (Exception e) {
+                DomainEvents.warning("Error loading groups.csv: " + e.getMessage());
+            }
+            replaceGroups(loaded);
+        }
+        replayDelta(dir, "M");
+        markClean();
+    }
+
+    // Applies the delta's student (S) or group (M) records over what was loaded from the CSV files
+    private void replayDelta(Path dir, String type) {
+        try {
+            countDeltaRecords(DeltaLog.replay(dir, type, this::applyDeltaRecord));
+        } catch (IOException e) {
+            DomainEvents.warning("Error loading " + DeltaLog.FILE + ": " + e.getMessage());
+            synchronized (saveLock) {
+                baseDir = null;
+            }
+        }
+    }
+
+    // Replayed records are still in the delta and count towards its limit
+    private void countDeltaRecords(int replayed) {
+        synchronized (saveLock) {
+            deltaRecords += replayed;
+        }
+    }
+
+    /**
+     * Saves students.csv, groups.csv and the binary snapshot in the current
+     * working directory, or, if those already hold everything but a few
+     * changes, appends just the changed students and groups to the delta.
+     */
+    public void saveProjectCsvs() throws IOException {
+        awaitSave();
+        runOnSaver(prepareSave(projectDir(), Scope.ALL, Progress.NONE));
+    }
+
+    private static Path projectDir() {
+        return Path.of("").toAbsolutePath().normalize();
+    }
+
+    // ===== DIRTY TRACKING AND INCREMENTAL SAVE =====
+
+    /** One prepared save; may run on another thread than the one that prepared it. */
+    @FunctionalInterface
+    private interface Save {
+        void write() throws IOException;
+    }
+
+    /** The changes an incremental save writes; a full save always writes everything. */
+    private enum Scope {
+        STUDENTS, GROUPS, ALL
+    }
+
+    /**
+     * Captures what must be written to {@code dir} and clears the dirty marks
+     * it covers. If {@code dir} holds this registry's files and the delta has
+     * room, the save appends the dirty students or groups, or both, to the
+     * delta; otherwise it rewrites every file, deletes the delta and clears
+     * every mark.
+     */
+    private Save prepareSave(Path dir, Scope scope, Progress progress) {
+        boolean withStudents = scope != Scope.GROUPS;
+        boolean withGroups = scope != Scope.STUDENTS;
+        synchronized (saveLock) {
+            int pending = (withStudents ? dirtyStudents.size() : 0) + (withGroups ? dirtyGroups.size() : 0);
+            if (dir.equals(baseDir)
+                    && deltaRecords + pending <= Math.max(MIN_DELTA_RECORDS, studentsById.size() / 10)) {
+                List<Student> students = withStudents ? new ArrayList<>(dirtyStudents) : List.of();
+                List<GroupRow> rows = withGroups ? groupRows(dirtyGroups) : List.of();
+                deltaRecords += pending;
+                if (withStudents)
+                    dirtyStudents.clear();
+                if (withGroups)
+                    dirtyGroups.clear();
+                return () -> DeltaLog.append(dir, students, rows);
+            }
+            List<Student> students = allStudents();
+            List<GroupRow> rows = groupRows(groups);
+            deltaRecords = 0;
+            baseDir = dir;
+            markClean();
+            return () -> writeAll(dir, students, rows, progress);
+        }
+    }
+
+    // Runs on the saver thread. The marks are gone once a save is prepared; if it then fails,
+    // only a full save is safe.
+    private void runSave(Save save) throws IOException {
+        try {
+            save.write();
+        } catch (IOException | RuntimeException e) {
+            synchronized (saveLock) {
+                baseDir = null;
+            }
+            throw e;
+        }
+    }
+
+    // Runs a save prepared after awaitSave() on the saver thread and waits for it
+    private void runOnSaver(Save save) throws IOException {
+        pendingSave = saver.submit(() -> {
+            runSave(save);
+            return null;
+        });
+        awaitSave();
+    }
+
+    /** Waits for the save in progress, if any, and rethrows what made it fail. */
+    private void awaitSave() throws IOException {
+        Future<?> save = pendingSave;
+        if (save == null)
+            return;
+        try {
+            save.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a save");
+        } catch (ExecutionException e) {
+            pendingSave = null;
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io)
+                throw io;
+            if (cause instanceof RuntimeException re)
+                throw re;
+            throw new IOException("Save failed", cause);
+        }
+        pendingSave = null;
+    }
+
+    private void markDirty(Student student) {
+        synchronized (saveLock) {
+            dirtyStudents.add(student);
+        }
+    }
+
+    private void markDirty(Group group) {
+        synchronized (saveLock) {
+            dirtyGroups.add(group);
+        }
+    }
+
+    private void markClean() {
+        synchronized (saveLock) {
+            dirtyStudents.clear();
+            dirtyGroups.clear();
+        }
+    }
+
+    // students.csv goes first so groups.csv never names students it does not have; the
+    // binary snapshot goes last and stamps both as written, so it is only preferred over them
+    // while neither has changed
+    private static void writeAll(Path dir, List<Student> students, List<GroupRow> rows, Progress progress)
+            throws IOException {
+        writeStudents(dir.resolve("students.csv").toFile(), students, progress);
+        writeGroups(dir.resolve("groups.csv").toFile(), rows, progress);
+        RegistrySnapshot.write(dir.resolve(SNAPSHOT_FILE), students, rows,
+                List.of(dir.resolve("students.csv"), dir.resolve("groups.csv")));
+        DeltaLog.delete(dir);
+    }
+
+    // Records state what a student or group was when saved, so replaying is idempotent
+    private void applyDeltaRecord(CsvTokenizer f, int n) {
+        switch (n > 0 ? f.field(0) : "") {
+            case "S" -> {
+                Student saved = new Student(f.field(1), f.field(3), f.field(4), DateCodec.parse(f.field(5)),
+                        f.field(2), f.field(6));
+                Student s = studentsById.get(saved.getId());
+                if (s == null) {
+                    registerAll(List.of(saved));
+                } else {
+                    // grades are only ever added, so the saved book extends the one loaded
+                    GradeBook have = s.getGradeBook();
+                    GradeBook want = saved.getGradeBook();
+                    for (int i = have.size(); i < want.size(); i++) {
+                        if (want.code(i) < 0) {
+                            have.addBlank();
+                        } else {
+                            s.addGrade(GradeBook.valueOf(want.code(i)));
+                        }
+                    }
+                    synchronized (saveLock) {
+                        dirtyStudents.remove(s);
+                    }
+                }
+            }
+            case "M" -> {
+                Group g = groups.get(f.field(1));
+                if (g == null) {
+                    g = new Group(f.field(1), f.field(2));
+                    attachGroup(g);
+                } else {
+                    g.setDescription(f.field(2));
+                }
+                CsvTokenizer ids = new CsvTokenizer(",");
+                Set<String> members = new LinkedHashSet<>();
+                for (int i = 0, count = ids.tokenizeList(f, 3); i < count; i++) {
+                    members.add(ids.trimmedField(i));
+                }
+                for (Student s : g.getStudents()) {
+                    if (!members.contains(s.getId())) {
+                        g.removeStudent(s);
+                    }
+                }
+                for (String id : members) {
+                    Student s = studentsById.get(id);
+                    if (s == null) {
+                        DomainEvents.warning("Unknown student id in " + DeltaLog.FILE + ": " + id);
+                    } else if (!g.contains(s)) {
+                        Group other = groupOf.get(s);
+                        if (other != null) {
+                            other.removeStudent(s);
+                        }
+                        g.addStudent(s);
+                    }
+                }
+                synchronized (saveLock) {
+                    dirtyGroups.remove(g);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown delta record type");
+        }
+    }
+
+    // The snapshot is used only while the CSV files are as they were saved with it
+    private static boolean snapshotIsCurrent(Path snapshot, List<Path> csvFiles) {
+        try {
+            return RegistrySnapshot.isCurrent(snapshot, csvFiles);
+        } catch (IOException e) {
+            DomainEvents.warning("Error checking " + SNAPSHOT_FILE + ", reading the CSV files instead: "
+                    + e.getMessage());
+            return false;
+        }
+    }
+
+    private void loadSnapshot(RegistrySnapshot.Contents contents) {
+        Map<String, Student> unique = new LinkedHashMap<>();
+        for (Student s : contents.students) {
+            if (s.getId() != null && !s.getId().isEmpty()) {
+                unique.putIfAbsent(s.getId(), s);
+            }
+        }
+        registerAll(new ArrayList<>(unique.values()));
+        Map<String, Group> loaded = new HashMap<>();
+        for (int g = 0; g < contents.groupNames.size(); g++) {
+            String name = contents.groupNames.get(g);
+            Group group = new Group(name, contents.groupDescriptions.get(g));
+            loaded.put(name, group);
+            for (int ordinal : contents.groupMembers.get(g)) {
+                Student s = contents.students[ordinal];
+                // a duplicate skipped above was never registered, so it cannot be a member either
+                if (unique.get(s.getId()) != s) {
+                    DomainEvents.warning("Duplicate student id in " + SNAPSHOT_FILE + ": " + s.getId()
+                            + " — not adding it to group " + name);
+                    continue;
+                }
+                try {
+                    group.addStudent(s);
+                } catch (Exception e) {
+                    DomainEvents.warning("Could not add student " + s.getId() + " to group " + name + ": "
+                            + e.getMessage());
+                }
+            }
+        }
+        replaceGroups(loaded);
+    }
+
+    public void exportToCsv(File file, Group group) throws IOException {
+        exportToCsv(file, group, Progress.NONE);
+    }
+
+    /** Writes the group's students to {@code file}, on the saver thread like every other save. */
+    public void exportToCsv(File file, Group group, Progress progress) throws IOException {
+        awaitSave();
+        List<Student> members = group.getStudents();
+        runOnSaver(() -> writeStudents(file, members, progress));
+    }
+
+    // Each file is written to a temporary file and renamed over the old one; a
+    // cancelled write is never committed
+    private static void writeStudents(File file, Collection<Student> students, Progress progress)
+            throws IOException {
+        try (CsvWriter out = CsvWriter.openAtomic(file.toPath(), ";")) {
+            for (Student s : students) {
+                if (out.rowCount() % PROGRESS_ROWS == 0) {
+                    progress.step(out.rowCount(), students.size());
+                }
+                s.writeCsvRow(out);
+            }
+            out.commit();
+        }
+    }
+
+    private static void writeGroups(File file, List<GroupRow> rows, Progress progress) throws IOException {
+        try (CsvWriter out = CsvWriter.openAtomic(file.toPath(), ";")) {
+            int gidx = 1;
+            for (GroupRow row : rows) {
+                progress.step(gidx - 1, rows.size());
+                out.rawField("G" + gidx).field(row.name).listField(row.memberIds);
+                if (!row.description.isEmpty()) {
+                    out.field(row.description);
+                }
+                out.endRow();
+                gidx++;
+            }
+            out.commit();
+        }
+    }
+
+    private List<Student> allStudents() {
+        List<Student> students = new ArrayList<>(studentsById.size());
+        studentsById.forEach(students::add);
+        return students;
+    }
+
+    private static List<GroupRow> groupRows(Iterable<Group> groups) {
+        List<GroupRow> rows = new ArrayList<>();
+        for (Group g : groups) {
+            List<Student> studs = g.getStudents();
+            List<String> ids = new ArrayList<>(studs.size());
+            for (Student s : studs) {
+                ids.add(s.getId());
+            }
+            rows.add(new GroupRow(g.getName(), g.getDescription(), ids));
+        }
+        return rows;
+    }
+
+    /** A group as written to groups.csv, detached from the live registry. */
+    static final class GroupRow {
+        final String name;
+        final String description;
+        final List<String> memberIds;
+
+        GroupRow(String name, String description, List<String> memberIds) {
+            this.name = name;
+            this.description = description;
+            this.memberIds = memberIds;
+        }
+    }
+
+    // ===== WRITE-AHEAD JOURNAL =====
+
+    /**
+     * Switches to journaled persistence in {@code dir}, which must hold the
+     * students.csv and groups.csv just loaded. Journal segments left over from
+     * an earlier run are replayed first. From then on every mutation is
+     * appended to the journal before it is applied, and after every
+     * {@value #COMPACT_AFTER_RECORDS} records a background thread rewrites both
+     * CSV files from a snapshot and drops the covered segments.
+     */
+    public void openJournal(File dir) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("Journal is already open");
+        }
+        Path path = dir.toPath();
+        int replayed = MutationJournal.replay(path, this::applyRecord);
+        if (replayed > 0) {
+            DomainEvents.warning("Replayed " + replayed + " journal records");
+        }
+        dataDir = path.toAbsolutePath().normalize();
+        journal = new MutationJournal(path, true);
+    }
+
+    /**
+     * Saves every change, incrementally if it can, and drops the journal
+     * segments the save covers.
+     */
+    public void checkpoint() throws IOException {
+        if (journal == null)
+            return;
+        awaitSave();
+        long sealed = journal.seal();
+        runOnSaver(prepareSave(dataDir, Scope.ALL, Progress.NONE));
+        journal.deleteThrough(sealed);
+    }
+
+    /** Final checkpoint, then closes the journal. */
+    public void closeJournal() throws IOException {
+        if (journal == null)
+            return;
+        try {
+            checkpoint();
+        } finally {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private void record(MutationJournal.Record record) {
+        if (journal == null)
+            return;
+        // compact before appending: every earlier record has been applied, so the snapshot covers them
+        if (journal.size() >= COMPACT_AFTER_RECORDS && (pendingSave == null || pendingSave.isDone())) {
+            startCompaction();
+        }
+        try {
+            journal.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the journal: " + e.getMessage(), e);
+        }
+    }
+
+    private void startCompaction() {
+        try {
+            long sealed = journal.seal();
+            Save save = prepareSave(dataDir, Scope.ALL, Progress.NONE);
+            pendingSave = saver.submit(() -> {
+                try {
+                    runSave(save);
+                    journal.deleteThrough(sealed);
+                } catch (IOException | RuntimeException e) {
+                    // the segments stay on disk and are covered by the next compaction
+                    DomainEvents.warning("Background compaction failed: " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            DomainEvents.warning("Could not start a new journal segment: " + e.getMessage());
+        }
+    }
+
+    // Records state what must hold afterwards, so replaying one twice is harmless
+    private void applyRecord(CsvTokenizer f, int n) {
+        switch (n > 0 ? f.field(0) : "") {
+            case "G" -> {
+                Group g = groups.get(f.field(1));
+                if (g == null) {
+                    g = new Group(f.field(1), f.field(2));
+                    attachGroup(g);
+                } else {
+                    g.setDescription(f.field(2));
+                }
+                markDirty(g);
+            }
+            case "A" -> {
+                Group g = requireGroup(f.field(1));
+                Student s = studentsById.get(f.field(2));
+                if (s == null) {
+                    s = new Student(f.field(2), f.field(4), f.field(5), DateCodec.parse(f.field(6)),
+                            f.field(3), f.field(7));
+                    register(s);
+                }
+                if (!g.contains(s)) {
+                    g.addStudent(s);
+                }
+            }
+            case "T" -> {
+                Student s = requireStudent(f.field(1));
+                Group from = requireGroup(f.field(2));
+                Group to = requireGroup(f.field(3));
+                if (from.contains(s)) {
+                    from.removeStudent(s);
+                }
+                if (!to.contains(s)) {
+                    to.addStudent(s);
+                }
+            }
+            case "R" -> {
+                Group g = requireGroup(f.field(1));
+                Student s = requireStudent(f.field(2));
+                if (g.contains(s)) {
+                    g.removeStudent(s);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown record type");
+        }
+    }
+
+    private Group requireGroup(String name) {
+        Group g = groups.get(name);
+        if (g == null)
+            throw new IllegalArgumentException("Unknown group: " + name);
+        return g;
+    }
+
+    private Student requireStudent(String id) {
+        Student s = studentsById.get(id);
+        if (s == null)
+            throw new IllegalArgumentException("Unknown student id: " + id);
+        return s;
+    }
+}
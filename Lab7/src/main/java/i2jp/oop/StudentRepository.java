@@ -0,0 +1,65 @@
+package i2jp.oop;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The registered students, keyed by id. {@link StudentRegistry} keeps its
+ * students only through this interface, so the storage behind it can change
+ * without touching the registry or the UI. The same interface backs the
+ * console app in Lab6.
+ */
+interface StudentRepository extends Iterable<Student> {
+    /** Stores {@code s}, replacing any student with the same id. */
+    void put(Student s);
+
+    /** Stores every student, as {@link #put} would one by one. */
+    default void putAll(Collection<? extends Student> students) {
+        for (Student s : students) {
+            put(s);
+        }
+    }
+
+    /** The student with this id, or {@code null}. */
+    Student get(String id);
+
+    default boolean contains(String id) {
+        return get(id) != null;
+    }
+
+    /**
+     * The students with these ids, keyed by id in the order asked for; ids
+     * without a student are left out.
+     */
+    default Map<String, Student> findByIds(Collection<String> ids) {
+        Map<String, Student> found = new LinkedHashMap<>();
+        for (String id : ids) {
+            Student s = get(id);
+            if (s != null) {
+                found.put(id, s);
+            }
+        }
+        return found;
+    }
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    void clear();
+
+    /** Every student, in no particular order. */
+    @Override
+    Iterator<Student> iterator();
+
+    /** Every student, in the order of {@link #iterator()}. */
+    default Stream<Student> streamAll() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+}
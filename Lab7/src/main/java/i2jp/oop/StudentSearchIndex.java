@@ -0,0 +1,118 @@
+package i2jp.oop;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Sorted index of students by last name, first name and index number, for
+ * prefix search as the user types.
+ * <p>
+ * Each student has one entry per field, keyed by the lower-cased field and
+ * ordered by key and then student id. A query seeks to the first key at or
+ * after each of its words and walks forward only while keys still start with
+ * them, so the cost depends on the number of results asked for and on the
+ * most selective word, not on the number of students. Every word must prefix
+ * one of the student's fields.
+ * <p>
+ * The registry keeps it up to date as students are registered; an instance
+ * is not thread-safe.
+ */
+final class StudentSearchIndex {
+    private static final Comparator<Entry> ORDER = Comparator.<Entry, String>comparing(e -> e.key)
+            .thenComparing(e -> e.id);
+
+    private static final class Entry {
+        final String key;
+        final String id;
+        final Student student;
+
+        Entry(String key, String id, Student student) {
+            this.key = key;
+            this.id = id;
+            this.student = student;
+        }
+    }
+
+    private final NavigableSet<Entry> entries = new TreeSet<>(ORDER);
+
+    void add(Student s) {
+        for (String key : keys(s)) {
+            entries.add(new Entry(key, s.getId(), s));
+        }
+    }
+
+    void remove(Student s) {
+        for (String key : keys(s)) {
+            entries.remove(new Entry(key, s.getId(), null));
+        }
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Students with a field starting with every word of {@code query}, ignoring
+     * case; at most {@code limit} of them.
+     */
+    List<Student> search(String query, int limit) {
+        String[] words = normalize(query).split("\\s+");
+        if (words.length == 0 || words[0].isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // Walk the key range of every word in step: every match lies in each range, so the
+        // results are complete as soon as the shortest one is done
+        List<Iterator<Entry>> ranges = new ArrayList<>(words.length);
+        for (String word : words) {
+            ranges.add(entries.tailSet(new Entry(word, "", null), true).iterator());
+        }
+        Set<Student> found = new LinkedHashSet<>();
+        while (found.size() < limit) {
+            for (int w = 0; w < words.length && found.size() < limit; w++) {
+                Entry e = ranges.get(w).hasNext() ? ranges.get(w).next() : null;
+                if (e == null || !e.key.startsWith(words[w])) {
+                    return new ArrayList<>(found);
+                }
+                if (matchesAll(e.student, words)) {
+                    found.add(e.student);
+                }
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    private static boolean matchesAll(Student s, String[] words) {
+        if (words.length == 1)
+            return true;
+        String[] keys = keys(s);
+        for (String word : words) {
+            boolean any = false;
+            for (String key : keys) {
+                any |= key.startsWith(word);
+            }
+            if (!any)
+                return false;
+        }
+        return true;
+    }
+
+    private static String[] keys(Student s) {
+        return new String[] { normalize(s.getLastName()), normalize(s.getFirstName()),
+                normalize(s.getIndexNumber()) };
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+}
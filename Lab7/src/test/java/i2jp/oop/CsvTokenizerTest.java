@@ -0,0 +1,73 @@
+package i2jp.oop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CsvTokenizerTest {
+    private final CsvTokenizer fields = new CsvTokenizer(";");
+
+    @Test
+    void splitsLikeStringSplit() {
+        assertEquals(List.of("a", "", " b ", ""), tokenize("a;; b ;", 0));
+        assertEquals(List.of(""), tokenize("", 0));
+        assertEquals(List.of("a", "b;c;d"), tokenize("a;b;c;d", 2));
+    }
+
+    @Test
+    void unquotesQuotedFields() {
+        assertEquals(List.of("a;b", "say \"hi\"", "line\nbreak"),
+                tokenize("\"a;b\";\"say \"\"hi\"\"\";\"line\nbreak\"", 0));
+        assertTrue(fields.isQuoted(0));
+        assertTrue(fields.isQuoted(2));
+    }
+
+    @Test
+    void limitAppliesToAQuotedLastField() {
+        assertEquals(List.of("a", "\"b;c\";d;e"), tokenize("a;\"b;c\";d;e", 2));
+        assertFalse(fields.isQuoted(1));
+        assertEquals(List.of("a", "b;c"), tokenize("a;\"b;c\"", 2));
+        assertTrue(fields.isQuoted(1));
+        assertEquals(List.of("\"x\";y"), tokenize("\"x\";y", 1));
+    }
+
+    @Test
+    void studentLineKeepsExtraFieldsInTheGrades() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Student.fromCsvLine("s1;111;Anna;Nowak;07.03.2001;\"[4.0]\";extra"));
+        Student s = Student.fromCsvLine("s1;111;Anna;Nowak;07.03.2001;\"[4.0,5.0]\"");
+        assertEquals(2, s.getGrades().length);
+    }
+
+    @Test
+    void scansUtf8Bytes() {
+        ByteBuffer bytes = ByteBuffer.wrap("Żaneta;\"Łódź;PL\";x".getBytes(StandardCharsets.UTF_8));
+        int n = fields.tokenize(bytes, 0, bytes.limit(), 2);
+        assertEquals(2, n);
+        assertEquals("Żaneta", fields.field(0));
+        assertEquals("\"Łódź;PL\";x", fields.field(1));
+    }
+
+    @Test
+    void rejectsMalformedQuotes() {
+        assertThrows(IllegalArgumentException.class, () -> fields.tokenize("a;\"b"));
+        assertThrows(IllegalArgumentException.class, () -> fields.tokenize("a;\"b\"c;d"));
+    }
+
+    private List<String> tokenize(String line, int maxFields) {
+        int n = maxFields == 0 ? fields.tokenize(line) : fields.tokenize(line, maxFields);
+        List<String> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(fields.field(i));
+        }
+        return result;
+    }
+}
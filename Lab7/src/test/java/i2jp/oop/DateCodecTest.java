@@ -0,0 +1,64 @@
+package i2jp.oop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Test;
+
+class DateCodecTest {
+    private static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    @Test
+    void parsesFixedWidthDates() {
+        assertEquals(LocalDate.of(2001, 3, 7), DateCodec.parse("07.03.2001"));
+        assertEquals(LocalDate.of(1, 1, 1), DateCodec.parse("01.01.0001"));
+        assertEquals(LocalDate.of(9999, 12, 31), DateCodec.parse("31.12.9999"));
+        assertEquals(LocalDate.of(2024, 2, 29), DateCodec.parse("29.02.2024"));
+    }
+
+    @Test
+    void clampsDayToEndOfMonthLikeTheFormatter() {
+        assertEquals(LocalDate.of(2000, 4, 30), DateCodec.parse("31.04.2000"));
+        assertEquals(LocalDate.of(2023, 2, 28), DateCodec.parse("29.02.2023"));
+        assertEquals(LocalDate.parse("31.04.2000", DMY), DateCodec.parse("31.04.2000"));
+    }
+
+    @Test
+    void rejectsWhatTheFormatterRejects() {
+        for (String text : new String[] { "", "7.3.2001", "00.03.2001", "32.01.2001", "01.13.2001",
+                "01.00.2001", "0a.03.2001", "07-03-2001", "07.03.200", " 07.03.2001" }) {
+            assertThrows(DateTimeParseException.class, () -> DateCodec.parse(text), text);
+        }
+    }
+
+    @Test
+    void formatsLikeTheFormatter() {
+        for (LocalDate date : new LocalDate[] { LocalDate.of(2001, 3, 7), LocalDate.of(1, 1, 1),
+                LocalDate.of(9999, 12, 31), LocalDate.of(1970, 10, 10), LocalDate.of(10000, 1, 1) }) {
+            assertEquals(date.format(DMY), DateCodec.format(date), date.toString());
+        }
+    }
+
+    @Test
+    void formatsIntoBuffers() {
+        LocalDate date = LocalDate.of(1999, 11, 5);
+        byte[] bytes = new byte[DateCodec.LENGTH + 2];
+        assertEquals(1 + DateCodec.LENGTH, DateCodec.formatTo(date, bytes, 1));
+        assertEquals("05.11.1999", new String(bytes, 1, DateCodec.LENGTH, StandardCharsets.US_ASCII));
+        char[] chars = new char[DateCodec.LENGTH];
+        assertEquals(DateCodec.LENGTH, DateCodec.formatTo(date, chars, 0));
+        assertEquals("05.11.1999", new String(chars));
+    }
+
+    @Test
+    void roundTripsEveryDayOfALeapYear() {
+        for (LocalDate date = LocalDate.of(2024, 1, 1); date.getYear() == 2024; date = date.plusDays(1)) {
+            assertEquals(date, DateCodec.parse(DateCodec.format(date)));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package i2jp.oop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DeltaLogTest {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void writeGroups() throws IOException {
+        Files.writeString(dir.resolve("groups.csv"), "G1;first group;[s1]\n");
+    }
+
+    @Test
+    void replaysStudentAndGroupRecords() throws IOException {
+        DeltaLog.append(dir, List.of(student("s1", "[4.0,4.5]")),
+                List.of(new StudentRegistry.GroupRow("G1", "renamed; again", List.of("s1", "s2"))));
+        DeltaLog.append(dir, List.of(student("s2", "[]"), student("s1", "[4.0,4.5,5.0]")), List.of());
+
+        assertEquals(List.of("s1;111;Anna;Nowak;07.03.2001;[4.0,4.5]", "s2;111;Anna;Nowak;07.03.2001;[]",
+                "s1;111;Anna;Nowak;07.03.2001;[4.0,4.5,5.0]"), replay("S"));
+        assertEquals(List.of("G1;renamed; again;[s1,s2]"), replay("M"));
+    }
+
+    @Test
+    void ignoresTornLastRecord() throws IOException {
+        DeltaLog.append(dir, List.of(student("s1", "[]")), List.of());
+        Files.write(dir.resolve(DeltaLog.FILE), "S;s2;111;An".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertEquals(List.of("s1;111;Anna;Nowak;07.03.2001;[]"), replay("S"));
+    }
+
+    @Test
+    void appendsAfterTornLastRecord() throws IOException {
+        DeltaLog.append(dir, List.of(student("s1", "[]")), List.of());
+        Files.write(dir.resolve(DeltaLog.FILE), "S;s2;111;An".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        DeltaLog.append(dir, List.of(student("s3", "[5.0]")),
+                List.of(new StudentRegistry.GroupRow("G1", "first group", List.of("s1", "s3"))));
+
+        assertEquals(List.of("s1;111;Anna;Nowak;07.03.2001;[]", "s3;111;Anna;Nowak;07.03.2001;[5.0]"),
+                replay("S"));
+        assertEquals(List.of("G1;first group;[s1,s3]"), replay("M"));
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotedFields() throws IOException {
+        Student student = new Student("s1", "Anna\nMaria", "Nowak", LocalDate.of(2001, 3, 7), "111", "[]");
+        DeltaLog.append(dir, List.of(student),
+                List.of(new StudentRegistry.GroupRow("G1", "two\nlines", List.of("s1"))));
+        Files.write(dir.resolve(DeltaLog.FILE), "M;G2;\"torn\ndescr".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        DeltaLog.append(dir, List.of(), List.of(new StudentRegistry.GroupRow("G3", "three", List.of())));
+
+        assertEquals(List.of("s1;111;Anna\nMaria;Nowak;07.03.2001;[]"), replay("S"));
+        assertEquals(List.of("G1;two\nlines;[s1]", "G3;three;[]"), replay("M"));
+    }
+
+    @Test
+    void restampsWhenOnlyATornStampIsLeft() throws IOException {
+        Files.write(dir.resolve(DeltaLog.FILE), "B;12:ab".getBytes(StandardCharsets.UTF_8));
+        DeltaLog.append(dir, List.of(), List.of(new StudentRegistry.GroupRow("G1", null, List.of())));
+
+        assertEquals(List.of("G1;;[]"), replay("M"));
+    }
+
+    @Test
+    void skipsGroupRecordsOnceGroupsFileIsRewritten() throws IOException {
+        DeltaLog.append(dir, List.of(student("s1", "[]")),
+                List.of(new StudentRegistry.GroupRow("G1", null, List.of("s1"))));
+        Files.writeString(dir.resolve("groups.csv"), "G1;first group;[]\n");
+
+        assertEquals(List.of(), replay("M"));
+        assertEquals(List.of("s1;111;Anna;Nowak;07.03.2001;[]"), replay("S"));
+    }
+
+    @Test
+    void appendsNothingWithoutChanges() throws IOException {
+        DeltaLog.append(dir, List.of(), List.of());
+        assertFalse(DeltaLog.exists(dir));
+
+        DeltaLog.append(dir, List.of(student("s1", "[]")), List.of());
+        assertTrue(DeltaLog.exists(dir));
+        DeltaLog.delete(dir);
+        assertFalse(DeltaLog.exists(dir));
+        assertEquals(List.of(), replay("S"));
+    }
+
+    private static Student student(String id, String grades) {
+        return new Student(id, "Anna", "Nowak", LocalDate.of(2001, 3, 7), "111", grades);
+    }
+
+    private List<String> replay(String type) throws IOException {
+        List<String> records = new ArrayList<>();
+        int count = DeltaLog.replay(dir, type, (fields, n) -> {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 1; i < n; i++) {
+                if (i > 1)
+                    sb.append(';');
+                sb.append(fields.field(i));
+            }
+            records.add(sb.toString());
+        });
+        assertEquals(records.size(), count);
+        return records;
+    }
+}
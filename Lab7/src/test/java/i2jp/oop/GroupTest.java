@@ -0,0 +1,109 @@
+package i2jp.oop;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class GroupTest {
+    private static final double[] SCALE = { 2.0, 3.0, 3.5, 4.0, 4.5, 5.0 };
+
+    @Test
+    void removalKeepsTheOrderMembersJoinedIn() {
+        Group group = new Group("order", "");
+        List<Student> members = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Student s = student("O" + i);
+            members.add(s);
+            group.addStudent(s);
+        }
+        List<Integer> removedAt = new ArrayList<>();
+        group.addListener(new Group.Listener() {
+            @Override
+            public void studentAdded(Group g, Student student, int index) {
+            }
+
+            @Override
+            public void studentRemoved(Group g, Student student, int index) {
+                removedAt.add(index);
+            }
+        });
+
+        group.removeStudent(members.get(1));
+        group.removeStudent(members.get(4));
+        group.removeStudent(members.get(0));
+
+        assertEquals(List.of(1, 3, 0), removedAt);
+        assertEquals(List.of(members.get(2), members.get(3), members.get(5)), group.getStudents());
+        for (int i = 0; i < group.size(); i++) {
+            assertTrue(group.contains(group.getStudent(i)));
+        }
+        assertFalse(group.contains(members.get(4)));
+        group.removeStudent(members.get(5));
+        assertEquals(List.of(members.get(2), members.get(3)), group.getStudents());
+    }
+
+    @Test
+    void totalsStayExactWhileGradesArriveDuringMembershipChanges() throws Exception {
+        Group group = new Group("race", "");
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            students.add(student("R" + i));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(students.size() + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (Student s : students) {
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (int k = 0; k < 20_000; k++) {
+                        s.addGrade(SCALE[k % SCALE.length]);
+                    }
+                    return null;
+                }));
+            }
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (int k = 0; k < 20_000; k++) {
+                    Student s = students.get(k % students.size());
+                    group.addStudent(s);
+                    group.removeStudent(s);
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // nobody is left, so every grade counted on the way in was taken out again
+        assertEquals(0, group.getGradeCount());
+        assertArrayEquals(new long[SCALE.length], group.getGradeHistogram());
+
+        long expected = 0;
+        for (Student s : students) {
+            group.addStudent(s);
+            expected += s.getGradeBook().count();
+        }
+        assertEquals(expected, group.getGradeCount());
+    }
+
+    private static Student student(String index) {
+        return new Student("Anna", "Nowak", LocalDate.of(2001, 3, 7), index);
+    }
+}
@@ -0,0 +1,160 @@
+package i2jp.oop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MutationJournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsInOrderAcrossSegments() throws IOException {
+        try (MutationJournal journal = new MutationJournal(dir, false)) {
+            journal.append(out -> out.rawField("A").field("s1").field("G1"));
+            journal.append(out -> out.rawField("D").field("name; with \"quotes\""));
+            journal.seal();
+            journal.append(out -> out.rawField("R").field("s1"));
+        }
+
+        assertEquals(List.of("A|s1|G1", "D|name; with \"quotes\"", "R|s1"), replay());
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotedFields() throws IOException {
+        try (MutationJournal journal = new MutationJournal(dir, false)) {
+            journal.append(out -> out.rawField("D").field("G1").field("first line\nsecond \"line\"\r\n"));
+            journal.append(out -> out.rawField("R").field("s1"));
+        }
+
+        assertEquals(List.of("D|G1|first line\nsecond \"line\"\r\n", "R|s1"), replay());
+    }
+
+    @Test
+    void ignoresRecordTornInsideQuotedField() throws IOException {
+        try (MutationJournal journal = new MutationJournal(dir, false)) {
+            journal.append(out -> out.rawField("R").field("s1"));
+        }
+        Files.write(onlySegment(), "D;G1;\"first line\nsec".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertEquals(List.of("R|s1"), replay());
+    }
+
+    @Test
+    void ignoresTornLastRecord() throws IOException {
+        try (MutationJournal journal = new MutationJournal(dir, false)) {
+            journal.append(out -> out.rawField("A").field("s1").field("G1"));
+            journal.append(out -> out.rawField("A").field("s2").field("G1"));
+        }
+        Path segment = onlySegment();
+        Files.write(segment, "A;s3;G".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertEquals(List.of("A|s1|G1", "A|s2|G1"), replay());
+    }
+
+    @Test
+    void skipsRecordsTheHandlerRejects() throws IOException {
+        try (MutationJournal journal = new MutationJournal(dir, false)) {
+            journal.append(out -> out.rawField("X"));
+            journal.append(out -> out.rawField("A").field("s1").field("G1"));
+        }
+        List<String> seen = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        DomainEvents.Sink previous = DomainEvents.getSink();
+        DomainEvents.setSink(new DomainEvents.Sink() {
+            @Override
+            public void studentCreated(Student student) {
+            }
+
+            @Override
+            public void warning(String message) {
+                warnings.add(message);
+            }
+        });
+        int applied;
+        try {
+            applied = MutationJournal.replay(dir, (fields, count) -> {
+                if (fields.field(0).equals("X"))
+                    throw new IllegalArgumentException("unknown record");
+                seen.add(fields.field(1));
+            });
+        } finally {
+            DomainEvents.setSink(previous);
+        }
+
+        assertEquals(1, applied);
+        assertEquals(List.of("s1"), seen);
+        // reported where the GUI can show it, not only on standard error
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0).endsWith(":1: unknown record"), warnings.get(0));
+    }
+
+    @Test
+    void newJournalContinuesAfterExistingSegments() throws IOException {
+        try (MutationJournal journal = new MutationJournal(dir, false)) {
+            journal.append(out -> out.rawField("A").field("s1").field("G1"));
+        }
+        try (MutationJournal journal = new MutationJournal(dir, false)) {
+            journal.append(out -> out.rawField("R").field("s1"));
+        }
+
+        assertEquals(List.of("A|s1|G1", "R|s1"), replay());
+    }
+
+    @Test
+    void deleteThroughRemovesOnlySealedSegments() throws IOException {
+        try (MutationJournal journal = new MutationJournal(dir, false)) {
+            journal.append(out -> out.rawField("A").field("s1").field("G1"));
+            long sealed = journal.seal();
+            journal.append(out -> out.rawField("R").field("s1"));
+            journal.deleteThrough(sealed);
+        }
+
+        assertEquals(List.of("R|s1"), replay());
+    }
+
+    @Test
+    void closeDeletesEmptySegment() throws IOException {
+        new MutationJournal(dir, false).close();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    private List<String> replay() throws IOException {
+        List<String> records = new ArrayList<>();
+        int applied = MutationJournal.replay(dir, (fields, count) -> {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                if (i > 0)
+                    sb.append('|');
+                sb.append(fields.field(i));
+            }
+            records.add(sb.toString());
+        });
+        assertEquals(records.size(), applied);
+        return records;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package i2jp.oop;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RegistrySnapshotTest {
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private Path csv;
+    private List<Student> students;
+
+    @BeforeEach
+    void writeSnapshot() throws IOException {
+        file = dir.resolve("registry.snapshot");
+        csv = dir.resolve("students.csv");
+        Files.writeString(csv, "s1;111;Anna;Nowak;07.03.2001;[4.0,,5.0]\n");
+        students = List.of(
+                new Student("s1", "Anna", "Nowak", LocalDate.of(2001, 3, 7), "111", "[4.0,,5.0]"),
+                new Student("s2", "Jan", "Kowalski", LocalDate.of(1999, 12, 31), "112", "[]"),
+                new Student(null, "Żaneta", "Nowak", LocalDate.of(1, 1, 1), "113", "[2.0]"));
+        RegistrySnapshot.write(file, students, List.of(
+                new StudentRegistry.GroupRow("G1", "first; group", List.of("s2", "s1", "missing")),
+                new StudentRegistry.GroupRow("G2", null, List.of())),
+                List.of(csv, dir.resolve("groups.csv")));
+    }
+
+    @Test
+    void roundTripsStudentsAndGroups() throws IOException {
+        RegistrySnapshot.Contents contents = RegistrySnapshot.read(file);
+
+        assertEquals(students.size(), contents.students.length);
+        for (int i = 0; i < students.size(); i++) {
+            Student expected = students.get(i);
+            Student actual = contents.students[i];
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getIndexNumber(), actual.getIndexNumber());
+            assertEquals(expected.getFirstName(), actual.getFirstName());
+            assertEquals(expected.getLastName(), actual.getLastName());
+            assertEquals(expected.getBirthDate(), actual.getBirthDate());
+            assertArrayEquals(expected.getGrades(), actual.getGrades());
+        }
+        assertEquals(List.of("G1", "G2"), contents.groupNames);
+        assertEquals(Arrays.asList("first; group", null), contents.groupDescriptions);
+        assertArrayEquals(new int[] { 1, 0 }, contents.groupMembers.get(0));
+        assertArrayEquals(new int[0], contents.groupMembers.get(1));
+        assertNull(contents.students[2].getId());
+    }
+
+    @Test
+    void isCurrentUntilASourceChanges() throws IOException {
+        List<Path> sources = List.of(csv, dir.resolve("groups.csv"));
+        assertTrue(RegistrySnapshot.isCurrent(file, sources));
+
+        // a source that appears later is a change; one that goes away is not
+        Files.writeString(dir.resolve("groups.csv"), "G1;first;[s1]\n");
+        assertFalse(RegistrySnapshot.isCurrent(file, sources));
+        Files.delete(dir.resolve("groups.csv"));
+        assertTrue(RegistrySnapshot.isCurrent(file, sources));
+
+        // an edit is noticed even if the modification time says the snapshot is newer
+        FileTime written = Files.getLastModifiedTime(file);
+        Files.writeString(csv, "s1;111;Anna;Nowak;07.03.2001;[4.0,,4.5]\n");
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(written.toMillis() - 60_000));
+        assertFalse(RegistrySnapshot.isCurrent(file, sources));
+        assertFalse(RegistrySnapshot.isCurrent(file, List.of(csv)));
+    }
+
+    @Test
+    void isNotCurrentIfMissingOrUnreadable() throws IOException {
+        List<Path> sources = List.of(csv, dir.resolve("groups.csv"));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, 14));
+        assertFalse(RegistrySnapshot.isCurrent(file, sources));
+        Files.writeString(file, "s1;111;Anna;Nowak;07.03.2001;[]\n");
+        assertFalse(RegistrySnapshot.isCurrent(file, sources));
+        Files.delete(file);
+        assertFalse(RegistrySnapshot.isCurrent(file, sources));
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        for (int length : new int[] { 0, 11, 12, bytes.length / 2, bytes.length - 1 }) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> RegistrySnapshot.read(file), "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsDamagedFile() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        for (int i = 0; i < bytes.length; i += 7) {
+            byte[] damaged = bytes.clone();
+            damaged[i] ^= 0x20;
+            Files.write(file, damaged);
+            assertThrows(IOException.class, () -> RegistrySnapshot.read(file), "byte " + i);
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Files.writeString(file, "s1;111;Anna;Nowak;07.03.2001;[]\n");
+        assertThrows(IOException.class, () -> RegistrySnapshot.read(file));
+    }
+}
@@ -0,0 +1,162 @@
+package i2jp.oop;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The registry keeps its project files in the working directory, which the
+ * build points at a scratch directory under {@code target}.
+ */
+class StudentRegistryTest {
+    private static final Path DIR = Path.of("").toAbsolutePath();
+    private static final Path STUDENTS = DIR.resolve("students.csv");
+    private static final Path GROUPS = DIR.resolve("groups.csv");
+
+    @BeforeEach
+    @AfterEach
+    void deleteProjectFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DIR, "{students.csv,groups.csv,registry.*}")) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void firstSaveWritesEverythingAndLaterSavesOnlyTheChanges() throws IOException {
+        StudentRegistry registry = new StudentRegistry();
+        Group a = new Group("A", "first");
+        Group b = new Group("B", "second");
+        registry.addGroup(a);
+        registry.addGroup(b);
+        Student anna = student("Anna", "111");
+        Student jan = student("Jan", "112");
+        registry.addStudentToGroup(anna, a);
+        registry.addStudentToGroup(jan, a);
+        registry.saveProjectCsvs();
+
+        assertTrue(Files.exists(STUDENTS));
+        assertFalse(DeltaLog.exists(DIR));
+        byte[] students = Files.readAllBytes(STUDENTS);
+        byte[] groups = Files.readAllBytes(GROUPS);
+
+        anna.addGrade(4.5);
+        registry.transferStudent(jan, a, b);
+        registry.setGroupDescription(b, "second;\nwith a line break");
+        registry.addStudentToGroup(student("Ewa", "113"), b);
+        registry.saveStudentsFile();
+        registry.saveGroupsFile();
+
+        assertTrue(DeltaLog.exists(DIR));
+        assertArrayEquals(students, Files.readAllBytes(STUDENTS));
+        assertArrayEquals(groups, Files.readAllBytes(GROUPS));
+
+        StudentRegistry reloaded = new StudentRegistry();
+        reloaded.loadFromProjectRoot();
+        assertGroup(reloaded, "A", "first", "111");
+        assertGroup(reloaded, "B", "second;\nwith a line break", "112", "113");
+        assertArrayEquals(new Double[] { 4.5 }, reloaded.getStudentByIndexNumber("111").getGrades());
+    }
+
+    @Test
+    void reloadThroughTheCsvFilesAlsoReplaysTheDelta() throws IOException {
+        StudentRegistry registry = new StudentRegistry();
+        Group a = new Group("A", "first");
+        registry.addGroup(a);
+        Student anna = student("Anna", "111");
+        registry.addStudentToGroup(anna, a);
+        registry.saveProjectCsvs();
+        anna.addGrade(5.0);
+        registry.addStudentToGroup(student("Jan", "112"), a);
+        registry.saveProjectCsvs();
+        assertTrue(DeltaLog.exists(DIR));
+        Files.delete(DIR.resolve("registry.snapshot"));
+
+        StudentRegistry reloaded = new StudentRegistry();
+        reloaded.loadFromProjectRoot();
+        assertGroup(reloaded, "A", "first", "111", "112");
+        assertArrayEquals(new Double[] { 5.0 }, reloaded.getStudentByIndexNumber("111").getGrades());
+    }
+
+    @Test
+    void csvEditsWinOverTheSnapshotWhateverTheirTimestamp() throws IOException {
+        StudentRegistry registry = new StudentRegistry();
+        Group a = new Group("A", "first");
+        registry.addGroup(a);
+        registry.addStudentToGroup(student("Anna", "111"), a);
+        registry.saveProjectCsvs();
+        FileTime written = Files.getLastModifiedTime(DIR.resolve("registry.snapshot"));
+        Files.writeString(GROUPS, Files.readString(GROUPS).replace(";first", ";edited"));
+        Files.setLastModifiedTime(GROUPS, written);
+
+        StudentRegistry reloaded = new StudentRegistry();
+        reloaded.loadFromProjectRoot();
+        assertGroup(reloaded, "A", "edited", "111");
+    }
+
+    @Test
+    void fullDeltaIsFoldedIntoTheCsvFiles() throws IOException {
+        int n = 10_000;
+        StudentRegistry reloaded = new StudentRegistry();
+        reloaded.loadFromProjectRoot();
+        StudentRegistry registry = new StudentRegistry();
+        for (int i = 0; i < n; i++) {
+            if (i % 50 == 0)
+                registry.addGroup(new Group("G" + i / 50, null));
+            registry.addStudentToGroup(student("Anna", "s" + i), registry.getGroup("G" + i / 50));
+        }
+        registry.saveProjectCsvs();
+        for (int i = 0; i < n; i++) {
+            registry.getStudentByIndexNumber("s" + i).addGrade(4.0);
+        }
+        registry.saveStudentsFile();
+        assertTrue(DeltaLog.exists(DIR));
+
+        // the records replayed on load fill the delta, so the next change rewrites the files
+        reloaded.loadStudentsFile();
+        reloaded.loadGroupsFile();
+        reloaded.getStudentByIndexNumber("s0").addGrade(5.0);
+        reloaded.saveStudentsFile();
+
+        assertFalse(DeltaLog.exists(DIR));
+        StudentRegistry last = new StudentRegistry();
+        last.loadFromProjectRoot();
+        assertEquals(50, last.getGroup("G199").getStudents().size());
+        assertArrayEquals(new Double[] { 4.0, 5.0 }, last.getStudentByIndexNumber("s0").getGrades());
+        assertArrayEquals(new Double[] { 4.0 }, last.getStudentByIndexNumber("s9999").getGrades());
+    }
+
+    private static Student student(String firstName, String indexNumber) {
+        return new Student(firstName, "Nowak", LocalDate.of(2001, 3, 7), indexNumber);
+    }
+
+    private static void assertGroup(StudentRegistry registry, String name, String description,
+            String... indexNumbers) {
+        Group group = registry.getGroup(name);
+        assertNotNull(group, name);
+        assertEquals(description, group.getDescription());
+        List<Student> members = group.getStudents();
+        assertEquals(indexNumbers.length, members.size(), name);
+        for (String index : indexNumbers) {
+            Student s = registry.getStudentByIndexNumber(index);
+            assertNotNull(s, index);
+            assertSame(group, registry.findGroupOf(s), index);
+        }
+    }
+}